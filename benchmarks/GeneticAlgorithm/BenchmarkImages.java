@@ -0,0 +1,39 @@
+package GeneticAlgorithm;
+
+import Utils.ImageUtils;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Loads the bundled BSDS images for benchmarks, optionally scaled to benchmark other image sizes
+ */
+class BenchmarkImages {
+
+    private BenchmarkImages() {
+    }
+
+    /**
+     * @param imageName name of an image in resources/images
+     * @param scale     factor to scale width and height with
+     */
+    static ImageGraph loadImageGraph(String imageName, double scale) throws IOException {
+        ImageUtils imageUtils = new ImageUtils();
+        BufferedImage bufferedImage = imageUtils.readImage(imageName);
+
+        if (scale != 1.0) {
+            int width = Math.max(1, (int) (bufferedImage.getWidth() * scale));
+            int height = Math.max(1, (int) (bufferedImage.getHeight() * scale));
+            BufferedImage scaledImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = scaledImage.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(bufferedImage, 0, 0, width, height, null);
+            graphics.dispose();
+            bufferedImage = scaledImage;
+        }
+
+        return new ImageGraph(imageUtils.parseBufferedImageToRGB(bufferedImage), bufferedImage.getWidth());
+    }
+}
@@ -0,0 +1,69 @@
+package GeneticAlgorithm;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks creating and evaluating a single individual
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IndividualBenchmark {
+
+    @Param({"86016.jpg", "147091.jpg"})
+    public String image;
+
+    @Param({"0.25", "0.5", "1.0"})
+    public double scale;
+
+    private ImageGraph imageGraph;
+    private Individual individual;
+
+    @Setup
+    public void setup() throws IOException {
+        imageGraph = BenchmarkImages.loadImageGraph(image, scale);
+        individual = new Individual(imageGraph, 0);
+    }
+
+    /**
+     * Initial individual from cutting random edges of the precomputed image MST, and evaluating its segments
+     */
+    @Benchmark
+    public Individual initialIndividual() {
+        return new Individual(imageGraph, 0);
+    }
+
+    /**
+     * Evaluation of every segment from scratch, without cached objective functions
+     */
+    @Benchmark
+    public double segmentObjectiveFunctions() {
+        int[] labels = individual.getLabels();
+        List<Segment> segments = Segment.generateSegments(imageGraph, labels, individual.getSegments().size());
+        double objectives = 0.0;
+
+        for (Segment segment : segments) {
+            segment.calculateObjectiveFunctions(labels);
+            objectives += segment.getOverallDeviation() + segment.getConnectivity();
+        }
+
+        return objectives;
+    }
+}
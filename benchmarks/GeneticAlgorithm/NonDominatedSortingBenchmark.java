@@ -0,0 +1,53 @@
+package GeneticAlgorithm;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks non-dominated sorting of populations too large to create from real individuals
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NonDominatedSortingBenchmark {
+
+    @Param({"40", "200", "2000", "10000"})
+    public int populationSize;
+
+    @Param({"2", "3"})
+    public int numberOfObjectives;
+
+    private double[][] objectives;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        objectives = new double[populationSize][numberOfObjectives];
+
+        for (double[] objective : objectives) {
+            for (int m = 0; m < numberOfObjectives; m++) {
+                objective[m] = random.nextDouble();
+            }
+        }
+    }
+
+    @Benchmark
+    public int[] sort() {
+        return NonDominatedSorting.sort(objectives);
+    }
+}
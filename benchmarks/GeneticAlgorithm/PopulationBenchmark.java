@@ -0,0 +1,109 @@
+package GeneticAlgorithm;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Utils.Utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the genetic operators, the sorting of a population and a full generation
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PopulationBenchmark {
+
+    @Param({"86016.jpg", "147091.jpg"})
+    public String image;
+
+    @Param({"0.25", "1.0"})
+    public double scale;
+
+    @Param({"20", "100"})
+    public int populationSize;
+
+    private ImageGraph imageGraph;
+    private ExecutorService executorService;
+    private Population population;
+    private SplittableRandom random;
+    private int generation;
+
+    @Setup
+    public void setup() throws IOException, InterruptedException {
+        imageGraph = BenchmarkImages.loadImageGraph(image, scale);
+        executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        random = new SplittableRandom(42); // Same population in every fork
+        population = new Population(imageGraph, executorService, random, populationSize);
+        generation = 1;
+    }
+
+    @TearDown
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Benchmark
+    public List<Segment> crossover() {
+        List<Individual> individuals = population.getIndividuals();
+        Individual parent = individuals.get(Utils.randomIndex(individuals.size()));
+        Individual otherParent = individuals.get(Utils.randomIndex(individuals.size()));
+        return population.crossover(parent, otherParent, new int[imageGraph.size()]);
+    }
+
+    /**
+     * Mutates a copy of a random individual, including the cost of copying its labels and segments
+     */
+    @Benchmark
+    public List<Segment> splitCombineMutate() {
+        List<Individual> individuals = population.getIndividuals();
+        Individual individual = individuals.get(Utils.randomIndex(individuals.size()));
+        int[] labels = individual.getLabels().clone();
+        List<Segment> segments = new ArrayList<>(individual.getSegments().size());
+
+        for (Segment segment : individual.getSegments()) {
+            segments.add(segment.copy(segment.getLabel()));
+        }
+
+        population.splitCombineMutate(labels, segments);
+        return segments;
+    }
+
+    @Benchmark
+    public List<Individual> fastNonDominatedSort() {
+        population.fastNonDominatedSort();
+        return population.getIndividuals();
+    }
+
+    @Benchmark
+    public List<Individual> calculateCrowdingDistances() {
+        population.calculateCrowdingDistances();
+        return population.getIndividuals();
+    }
+
+    @Benchmark
+    public List<Individual> tick() throws InterruptedException {
+        population.tick(generation++, executorService, random);
+        return population.getIndividuals();
+    }
+}
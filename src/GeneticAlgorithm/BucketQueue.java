@@ -0,0 +1,47 @@
+package GeneticAlgorithm;
+
+import java.util.Arrays;
+
+/**
+ * Priority queue of edges with quantized weights in [0, ImageGraph.NUMBER_OF_WEIGHTS>.
+ * One stack of edges per weight, so adding and removing an edge is O(1) apart from skipping empty buckets
+ */
+class BucketQueue {
+    private final int[][] buckets = new int[ImageGraph.NUMBER_OF_WEIGHTS][];
+    private final int[] bucketSizes = new int[ImageGraph.NUMBER_OF_WEIGHTS];
+    private int minimumBucket = ImageGraph.NUMBER_OF_WEIGHTS; // No bucket below is non-empty
+    private int size;
+
+    void add(int weight, int edge) {
+        int[] bucket = buckets[weight];
+
+        if (bucket == null) {
+            bucket = buckets[weight] = new int[16];
+        } else if (bucketSizes[weight] == bucket.length) {
+            bucket = buckets[weight] = Arrays.copyOf(bucket, bucket.length * 2);
+        }
+
+        bucket[bucketSizes[weight]++] = edge;
+        size++;
+
+        if (weight < minimumBucket) {
+            minimumBucket = weight;
+        }
+    }
+
+    /**
+     * @return an edge with the lowest weight
+     */
+    int remove() {
+        while (bucketSizes[minimumBucket] == 0) {
+            minimumBucket++;
+        }
+
+        size--;
+        return buckets[minimumBucket][--bucketSizes[minimumBucket]];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+}
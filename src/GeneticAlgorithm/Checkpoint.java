@@ -0,0 +1,343 @@
+package GeneticAlgorithm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * State of a run after a generation, so a run that dies can be resumed: the individuals of each population (one,
+ * or one per island) with their objective functions, ranks and crowding distances, the generation counter, and seeds
+ * of the random numbers that follow the checkpoint.
+ * Segments are saved with their pixel order and cached sums, as both affect later offspring, so a resumed run is
+ * the same as the run it was checkpointed from. The cached sums only hold for the same pixels in the same color space,
+ * so a checkpoint is only resumed with the same image and GeneticAlgorithm.COLOR_SPACE. The objective functions of each
+ * individual are saved too, and must match the sums of its restored segments.
+ * The state is captured on the tick thread, which is cheap as individuals are not modified after they are created,
+ * and written later on another thread. Binary, big endian:
+ * <pre>
+ * int magic ("SEGC"), int version, int width, int height, UTF color space, long CRC-32 of the packed RGB pixels,
+ * long seed, int generation, long migration seed, int number of populations
+ * per population: long random seed, int number of individuals
+ * per individual: int generation, double overall deviation, double connectivity, int rank, double crowding distance,
+ *                 int number of segments
+ * per segment:    double overall deviation, double connectivity, long[6] RGB sums and squared RGB sums,
+ *                 double[3] color sums, double[3] squared color sums,
+ *                 int number of pixels, boolean ascending pixel order, then either runs of consecutive pixel ids
+ *                 (int number of runs, int first id, int length) or every pixel id
+ * </pre>
+ */
+class Checkpoint {
+    private static final int MAGIC = 0x53454743;
+    private static final int VERSION = 2;
+
+    private final long seed; // Seed of the run
+    private final int generation;
+    private final long migrationSeed; // Seed of the migrations of an island model
+    private final long[] randomSeeds; // Seed of the random numbers of each population after the checkpoint
+    private final List<List<Member>> populations;
+
+    private Checkpoint(long seed, int generation, long migrationSeed, long[] randomSeeds, List<List<Member>> populations) {
+        this.seed = seed;
+        this.generation = generation;
+        this.migrationSeed = migrationSeed;
+        this.randomSeeds = randomSeeds;
+        this.populations = populations;
+    }
+
+    /**
+     * Captures the individuals of each population
+     *
+     * @param randomSeeds seed of the random numbers of each population after the checkpoint
+     */
+    static Checkpoint capture(long seed, int generation, long migrationSeed, long[] randomSeeds, List<List<Individual>> populations) {
+        List<List<Member>> capturedPopulations = new ArrayList<>(populations.size());
+
+        for (List<Individual> individuals : populations) {
+            List<Member> members = new ArrayList<>(individuals.size());
+            for (Individual individual : individuals) {
+                members.add(new Member(individual));
+            }
+            capturedPopulations.add(members);
+        }
+
+        return new Checkpoint(seed, generation, migrationSeed, randomSeeds, capturedPopulations);
+    }
+
+    /**
+     * Writes to a temporary file next to file, which then replaces file, so a crash while writing keeps the last checkpoint
+     */
+    void write(File file, ImageGraph imageGraph) throws IOException {
+        File temporaryFile = new File(file.getPath() + ".tmp");
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(imageGraph.getWidth());
+            output.writeInt(imageGraph.getHeight());
+            output.writeUTF(GeneticAlgorithm.COLOR_SPACE.name());
+            output.writeLong(getChecksum(imageGraph));
+            output.writeLong(seed);
+            output.writeInt(generation);
+            output.writeLong(migrationSeed);
+            output.writeInt(populations.size());
+
+            for (int population = 0; population < populations.size(); population++) {
+                output.writeLong(randomSeeds[population]);
+                output.writeInt(populations.get(population).size());
+
+                for (Member member : populations.get(population)) {
+                    output.writeInt(member.generation);
+                    output.writeDouble(member.overallDeviation);
+                    output.writeDouble(member.connectivity);
+                    output.writeInt(member.rank);
+                    output.writeDouble(member.crowdingDistance);
+                    output.writeInt(member.segments.size());
+
+                    for (Segment segment : member.segments) {
+                        writeSegment(output, segment);
+                    }
+                }
+            }
+        }
+
+        Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeSegment(DataOutputStream output, Segment segment) throws IOException {
+        output.writeDouble(segment.getOverallDeviation());
+        output.writeDouble(segment.getConnectivity());
+        for (long sum : segment.getRGBSums()) {
+            output.writeLong(sum);
+        }
+        for (int channel = 0; channel < ColorSpace.NUMBER_OF_CHANNELS; channel++) {
+            output.writeDouble(segment.getColorSums()[channel]);
+        }
+        for (int channel = 0; channel < ColorSpace.NUMBER_OF_CHANNELS; channel++) {
+            output.writeDouble(segment.getSquaredColorSums()[channel]);
+        }
+
+        int[] pixels = segment.getSegmentPixels();
+        boolean ascending = true;
+        int numberOfRuns = pixels.length == 0 ? 0 : 1;
+        for (int i = 1; i < pixels.length && ascending; i++) {
+            ascending = pixels[i] > pixels[i - 1];
+            if (pixels[i] != pixels[i - 1] + 1) {
+                numberOfRuns++;
+            }
+        }
+
+        output.writeInt(pixels.length);
+        output.writeBoolean(ascending);
+
+        if (ascending) {
+            // Mostly whole rows of pixels
+            output.writeInt(numberOfRuns);
+            for (int i = 0; i < pixels.length; ) {
+                int length = 1;
+                while (i + length < pixels.length && pixels[i + length] == pixels[i] + length) {
+                    length++;
+                }
+                output.writeInt(pixels[i]);
+                output.writeInt(length);
+                i += length;
+            }
+        } else {
+            for (int pixel : pixels) {
+                output.writeInt(pixel);
+            }
+        }
+    }
+
+    /**
+     * @param imageGraph graph of the image of the checkpointed run
+     */
+    static Checkpoint read(File file, ImageGraph imageGraph) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (input.readInt() != MAGIC) {
+                throw new IOException("Not a checkpoint: " + file);
+            }
+            int version = input.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported checkpoint version " + version);
+            }
+
+            int width = input.readInt();
+            int height = input.readInt();
+            if (width != imageGraph.getWidth() || height != imageGraph.getHeight()) {
+                throw new IOException("Checkpoint of a " + width + "x" + height + " image, not " + imageGraph.getWidth() + "x" + imageGraph.getHeight());
+            }
+
+            String colorSpace = input.readUTF();
+            if (!colorSpace.equals(GeneticAlgorithm.COLOR_SPACE.name())) {
+                throw new IOException("Checkpoint in color space " + colorSpace + ", not " + GeneticAlgorithm.COLOR_SPACE);
+            }
+            if (input.readLong() != getChecksum(imageGraph)) {
+                throw new IOException("Checkpoint of another image of the same size");
+            }
+
+            long seed = input.readLong();
+            int generation = input.readInt();
+            long migrationSeed = input.readLong();
+            long[] randomSeeds = new long[input.readInt()];
+            List<List<Member>> populations = new ArrayList<>(randomSeeds.length);
+
+            for (int population = 0; population < randomSeeds.length; population++) {
+                randomSeeds[population] = input.readLong();
+                List<Member> members = new ArrayList<>();
+
+                for (int i = input.readInt(); i > 0; i--) {
+                    Member member = new Member();
+                    member.generation = input.readInt();
+                    member.overallDeviation = input.readDouble();
+                    member.connectivity = input.readDouble();
+                    member.rank = input.readInt();
+                    member.crowdingDistance = input.readDouble();
+                    member.labels = new int[imageGraph.size()];
+                    member.segments = new ArrayList<>();
+
+                    for (int label = 0, numberOfSegments = input.readInt(); label < numberOfSegments; label++) {
+                        member.segments.add(readSegment(input, imageGraph, label, member.labels));
+                    }
+                    members.add(member);
+                }
+                populations.add(members);
+            }
+
+            return new Checkpoint(seed, generation, migrationSeed, randomSeeds, populations);
+        }
+    }
+
+    /**
+     * @param labels receives the label of each pixel of the segment
+     */
+    private static Segment readSegment(DataInputStream input, ImageGraph imageGraph, int label, int[] labels) throws IOException {
+        double overallDeviation = input.readDouble();
+        double connectivity = input.readDouble();
+        long[] rgbSums = new long[6];
+        for (int i = 0; i < rgbSums.length; i++) {
+            rgbSums[i] = input.readLong();
+        }
+        double[] colorSums = new double[ColorSpace.NUMBER_OF_CHANNELS];
+        double[] squaredColorSums = new double[ColorSpace.NUMBER_OF_CHANNELS];
+        for (int channel = 0; channel < ColorSpace.NUMBER_OF_CHANNELS; channel++) {
+            colorSums[channel] = input.readDouble();
+        }
+        for (int channel = 0; channel < ColorSpace.NUMBER_OF_CHANNELS; channel++) {
+            squaredColorSums[channel] = input.readDouble();
+        }
+
+        int[] pixels = new int[input.readInt()];
+        if (input.readBoolean()) {
+            int i = 0;
+            for (int run = input.readInt(); run > 0; run--) {
+                int firstPixel = input.readInt();
+                for (int length = input.readInt(), pixel = firstPixel; pixel < firstPixel + length; pixel++) {
+                    pixels[i++] = pixel;
+                }
+            }
+        } else {
+            for (int i = 0; i < pixels.length; i++) {
+                pixels[i] = input.readInt();
+            }
+        }
+
+        for (int pixel : pixels) {
+            labels[pixel] = label;
+        }
+
+        return new Segment(imageGraph, label, pixels, rgbSums, colorSums, squaredColorSums, overallDeviation, connectivity);
+    }
+
+    /**
+     * @return CRC-32 of the packed RGB value of each pixel
+     */
+    private static long getChecksum(ImageGraph imageGraph) {
+        ByteBuffer pixels = ByteBuffer.allocate(Integer.BYTES * imageGraph.size());
+        for (int pixel = 0; pixel < imageGraph.size(); pixel++) {
+            pixels.putInt(imageGraph.getRGB(pixel));
+        }
+
+        CRC32 checksum = new CRC32();
+        checksum.update(pixels.array());
+        return checksum.getValue();
+    }
+
+    /**
+     * @return restored individuals of each population
+     * @throws IOException if the objective functions of an individual are not those of its restored segments
+     */
+    List<List<Individual>> getPopulations(ImageGraph imageGraph) throws IOException {
+        List<List<Individual>> restoredPopulations = new ArrayList<>(populations.size());
+
+        for (List<Member> members : populations) {
+            List<Individual> individuals = new ArrayList<>(members.size());
+            for (Member member : members) {
+                Individual individual = new Individual(imageGraph, member.labels, member.segments, member.generation,
+                        member.rank, member.crowdingDistance);
+                if (Double.compare(individual.getOverallDeviation(), member.overallDeviation) != 0
+                        || Double.compare(individual.getConnectivity(), member.connectivity) != 0) {
+                    throw new IOException("Checkpointed objective functions (" + member.overallDeviation + ", "
+                            + member.connectivity + ") do not match the restored individual (" + individual.getOverallDeviation()
+                            + ", " + individual.getConnectivity() + ")");
+                }
+                individuals.add(individual);
+            }
+            restoredPopulations.add(individuals);
+        }
+
+        return restoredPopulations;
+    }
+
+    long getSeed() {
+        return seed;
+    }
+
+    int getGeneration() {
+        return generation;
+    }
+
+    long getMigrationSeed() {
+        return migrationSeed;
+    }
+
+    long[] getRandomSeeds() {
+        return randomSeeds;
+    }
+
+    /**
+     * Values of an individual at the checkpoint, as rank and crowding distance change in later generations
+     */
+    private static class Member {
+        private int generation;
+        private double overallDeviation;
+        private double connectivity;
+        private int rank;
+        private double crowdingDistance;
+        private int[] labels;
+        private List<Segment> segments; // Not modified after the individual is created
+
+        Member() {
+        }
+
+        Member(Individual individual) {
+            generation = individual.getGeneration();
+            overallDeviation = individual.getOverallDeviation();
+            connectivity = individual.getConnectivity();
+            rank = individual.getRank();
+            crowdingDistance = individual.getCrowdingDistance();
+            labels = individual.getLabels();
+            segments = individual.getSegments();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package GeneticAlgorithm;
+
+/**
+ * Euclidean color distances over a planar color array, where channel c of pixel p is at c * numberOfPixels + p.
+ * The SIMD implementation is used when the jdk.incubator.vector module is available, otherwise the scalar one
+ */
+interface ColorDistanceKernel {
+
+    /**
+     * Selected once at startup
+     */
+    ColorDistanceKernel INSTANCE = create();
+
+    /**
+     * @param pixelIds ids of the pixels to visit
+     * @param color    color to measure the distance to, one value per channel
+     * @return sum of the distances between the color of each pixel and color
+     */
+    double sumOfDistances(float[] colors, int numberOfPixels, int[] pixelIds, float[] color);
+
+    /**
+     * Distance between each pixel in [from, from + length> and the pixel offset ids after it
+     *
+     * @param distances receives the distance of pixel from + i at index i
+     */
+    void distances(float[] colors, int numberOfPixels, int from, int offset, int length, float[] distances);
+
+    private static ColorDistanceKernel create() {
+        try {
+            return (ColorDistanceKernel) Class.forName("GeneticAlgorithm.VectorColorDistanceKernel").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new ScalarColorDistanceKernel(); // The vector module is not added to the JVM
+        }
+    }
+}
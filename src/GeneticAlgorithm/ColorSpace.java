@@ -0,0 +1,93 @@
+package GeneticAlgorithm;
+
+/**
+ * Color space all color distances are measured in. The image is converted once, into a planar array where
+ * channel c of pixel p is at c * numberOfPixels + p
+ */
+enum ColorSpace {
+    RGB {
+        @Override
+        void convert(int rgb, float[] channels) {
+            channels[0] = (rgb >> 16) & 0xFF;
+            channels[1] = (rgb >> 8) & 0xFF;
+            channels[2] = rgb & 0xFF;
+        }
+
+        /**
+         * Truncated to whole color values, as the centroid is also the average color drawn on canvas
+         */
+        @Override
+        float centroid(double sum, double sumOfSquares, int size) {
+            return (int) (GeneticAlgorithm.AVERAGE_COLOR ? Math.sqrt(sumOfSquares / size) : sum / size);
+        }
+    },
+
+    /**
+     * CIE L*a*b* (D65), where Euclidean distance is the perceptual color difference ΔE*ab
+     */
+    CIELAB {
+        @Override
+        void convert(int rgb, float[] channels) {
+            double red = LINEAR_SRGB[(rgb >> 16) & 0xFF];
+            double green = LINEAR_SRGB[(rgb >> 8) & 0xFF];
+            double blue = LINEAR_SRGB[rgb & 0xFF];
+
+            double x = f((0.4124564 * red + 0.3575761 * green + 0.1804375 * blue) / 0.95047);
+            double y = f(0.2126729 * red + 0.7151522 * green + 0.0721750 * blue);
+            double z = f((0.0193339 * red + 0.1191920 * green + 0.9503041 * blue) / 1.08883);
+
+            channels[0] = (float) (116 * y - 16);
+            channels[1] = (float) (500 * (x - y));
+            channels[2] = (float) (200 * (y - z));
+        }
+
+        @Override
+        float centroid(double sum, double sumOfSquares, int size) {
+            return (float) (sum / size);
+        }
+
+        private double f(double t) {
+            return t > 216.0 / 24389 ? Math.cbrt(t) : (24389.0 / 27 * t + 16) / 116;
+        }
+    };
+
+    static final int NUMBER_OF_CHANNELS = 3;
+
+    private static final double[] LINEAR_SRGB = new double[256]; // Linear intensity of each sRGB value
+
+    static {
+        for (int value = 0; value < LINEAR_SRGB.length; value++) {
+            double intensity = value / 255.0;
+            LINEAR_SRGB[value] = intensity <= 0.04045 ? intensity / 12.92 : Math.pow((intensity + 0.055) / 1.055, 2.4);
+        }
+    }
+
+    /**
+     * @param rgb      packed RGB value (0xRRGGBB)
+     * @param channels receives the color in this color space
+     */
+    abstract void convert(int rgb, float[] channels);
+
+    /**
+     * @return one channel of the centroid (μ) of a segment, from the sums of the channel over its pixels
+     */
+    abstract float centroid(double sum, double sumOfSquares, int size);
+
+    /**
+     * @param rgb packed RGB value of each pixel
+     * @return planar array with channel c of pixel p at c * rgb.length + p
+     */
+    float[] toColorPlane(int[] rgb) {
+        float[] colors = new float[NUMBER_OF_CHANNELS * rgb.length];
+        float[] channels = new float[NUMBER_OF_CHANNELS];
+
+        for (int pixel = 0; pixel < rgb.length; pixel++) {
+            convert(rgb[pixel], channels);
+            for (int channel = 0; channel < NUMBER_OF_CHANNELS; channel++) {
+                colors[channel * rgb.length + pixel] = channels[channel];
+            }
+        }
+
+        return colors;
+    }
+}
@@ -0,0 +1,36 @@
+package GeneticAlgorithm;
+
+/**
+ * Immutable state of the genetic algorithm after a tick, which can be read on any thread while the genetic algorithm
+ * continues
+ */
+public class GenerationSnapshot {
+    private final int generation;
+    private final double[][] populationData; // Rank, overall deviation and connectivity of each individual
+    private final Segmentation segmentation; // A random pareto optimal individual
+
+    GenerationSnapshot(int generation, double[][] populationData, Segmentation segmentation) {
+        this.generation = generation;
+        this.populationData = populationData;
+        this.segmentation = segmentation;
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return copy of the population data, see GeneticAlgorithm.getPopulationData
+     */
+    public double[][] getPopulationData() {
+        double[][] copy = new double[populationData.length][];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = populationData[i].clone();
+        }
+        return copy;
+    }
+
+    public Segmentation getSegmentation() {
+        return segmentation;
+    }
+}
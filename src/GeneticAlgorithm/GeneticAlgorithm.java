@@ -1,23 +1,21 @@
 package GeneticAlgorithm;
 
-import Main.GuiController;
-import javafx.scene.canvas.GraphicsContext;
-
 import javax.imageio.ImageIO;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.sql.Timestamp;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Future;
 
 /**
  * Controller for Genetic Algorithm
@@ -36,6 +34,21 @@ public class GeneticAlgorithm {
 
     static final boolean AVERAGE_COLOR = true;
 
+    // Color space of all color distances. CIELAB measures perceptual color difference
+    static final ColorSpace COLOR_SPACE = ColorSpace.RGB;
+
+    // True = Asynchronous steady-state NSGA-II, where each offspring replaces the worst individual as soon as it is created
+    // False = Generational NSGA-II
+    final static boolean STEADY_STATE = false;
+
+    // Island model. Each island is a population of POPULATION_SIZE, evolved by its own thread. 1 = a single population
+    final static int NUMBER_OF_ISLANDS = 1;
+    final static int MIGRATION_INTERVAL = 5; // Generations between migrations, which is also the generations of one tick
+    final static int NUMBER_OF_MIGRANTS = 2; // Individuals sent from each island to each of its destinations
+    static final MigrationTopology MIGRATION_TOPOLOGY = MigrationTopology.RING;
+
+    final static int CHECKPOINT_INTERVAL = 10; // Generations between checkpoints, which are written when checkpoints are enabled
+
     // True = Multi objective GA
     // False = Weighted sum GA
     final static boolean MULTI_OBJECTIVE = true;
@@ -44,116 +57,236 @@ public class GeneticAlgorithm {
     final static double OVERALL_DEVIATION_WEIGHT = 0.05;
     final static double CONNECTIVITY_WEIGHT = 1;
 
-    // Initial lists (read only)
-    static List<Pixel> pixels;
+    // Image graph (read only)
+    private final ImageGraph imageGraph;
 
     private int generation = 0;
     private Population population;
-
-
-    public GeneticAlgorithm(Color[][] colorArr) {
-        pixels = new ArrayList<>();
-        Pixel.resetIdentification(); // Resets IDs in pixels, so it can be used for list retrieving
-        Pixel[][] pixelArr = generateGenes(colorArr);
-        findAndAddAllPixelNeighbors(pixelArr);
+    private IslandModel islandModel; // Instead of population when there are several islands
+
+    // Seeds all random numbers of a run, so a run can be repeated with the same seed
+    private long seed = new SplittableRandom().nextLong();
+    private SplittableRandom random = new SplittableRandom(seed);
+    private long randomSeed; // Seed of random since the last checkpoint
+
+    // Checkpoints are captured on the tick thread, and written by their own thread
+    private File checkpointFile; // Null when checkpoints are disabled
+    private int lastCheckpointGeneration; // Random numbers are seeded again at every checkpoint, even when it is not written
+    private ExecutorService checkpointExecutorService;
+    private Future<?> pendingCheckpoint;
+
+    // Pool used to create individuals and save solutions. Either owned by this GA, or shared between several GAs
+    private final ExecutorService executorService;
+    private final boolean ownsExecutorService;
+
+
+    /**
+     * @param rgb   packed RGB value (0xRRGGBB) of each pixel, indexed by y * width + x
+     * @param width width of the image
+     */
+    public GeneticAlgorithm(int[] rgb, int width) {
+        // Long-lived pool. Daemon threads, so an unclosed GA never keeps the JVM alive
+        this(rgb, width, Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "genetic-algorithm-worker");
+            thread.setDaemon(true);
+            return thread;
+        }), true);
     }
 
-    public void tick() throws InterruptedException {
-        if (generation == 0) {
-            population = new Population();
-        } else {
-            population.tick(generation);
-        }
-        generation++;
+    /**
+     * All state is kept per instance, so several GAs can run concurrently on a shared executorService
+     *
+     * @param executorService pool shared with other GAs. It is not shut down by this GA
+     */
+    public GeneticAlgorithm(int[] rgb, int width, ExecutorService executorService) {
+        this(rgb, width, executorService, false);
     }
 
-    public void render(GraphicsContext gc, GraphicsContext gc2, GraphicsContext gc3) {
-        final long startTime = System.currentTimeMillis();
+    private GeneticAlgorithm(int[] rgb, int width, ExecutorService executorService, boolean ownsExecutorService) {
+        this.executorService = executorService;
+        this.ownsExecutorService = ownsExecutorService;
 
-        List<Segment> segments = population.getRandomParetoSegments();
-        gc2.setFill(javafx.scene.paint.Color.rgb(0, 255, 0));
-        gc3.setFill(javafx.scene.paint.Color.BLACK);
+        final long startTime = System.currentTimeMillis();
+        imageGraph = new ImageGraph(rgb, width);
+        System.out.println("Image graph generated in " + ((System.currentTimeMillis() - startTime)) + "ms, using " + ColorDistanceKernel.INSTANCE + " color distances");
+    }
 
-        for (Segment segment : segments) {
-            Color awtColor = segment.getAverageColor();
-            javafx.scene.paint.Color fxColor = javafx.scene.paint.Color.rgb(awtColor.getRed(), awtColor.getGreen(), awtColor.getBlue());
-            gc.setFill(fxColor);
-            for (Pixel segmentPixel : segment.getSegmentPixels().values()) {
-                gc.fillRect(segmentPixel.getX(), segmentPixel.getY(), 1, 1);
-            }
+    /**
+     * Seeds the run. Must be called before the first tick to have any effect on the population
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        random = new SplittableRandom(seed);
+    }
 
+    public long getSeed() {
+        return seed;
+    }
 
-            for (Pixel segmentPixel : segment.getBoundaryPixels()) {
-                gc2.fillRect(segmentPixel.getX(), segmentPixel.getY(), 1, 1);
-                gc3.fillRect(segmentPixel.getX(), segmentPixel.getY(), 1, 1);
-            }
+    /**
+     * Saves the state of the run to file every CHECKPOINT_INTERVAL generations. Checkpoints are written on a background
+     * thread, so tick does not wait for them, and a checkpoint is skipped if the previous one is still being written
+     */
+    public void setCheckpointFile(File file) {
+        checkpointFile = file;
+        if (checkpointExecutorService == null) {
+            checkpointExecutorService = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "genetic-algorithm-checkpoint");
+                thread.setDaemon(true);
+                return thread;
+            });
         }
-
-        System.out.println("Pareto optimal solution rendered in " + ((System.currentTimeMillis() - startTime)) + "ms");
     }
 
-    private Pixel[][] generateGenes(Color[][] colorArr) {
+    /**
+     * Continues the run saved in file, with the same image. Must be called instead of the first tick.
+     * The resumed run continues exactly as the original run did after the checkpoint
+     */
+    public void resume(File file) throws IOException {
         final long startTime = System.currentTimeMillis();
-        Pixel[][] pixelArr = new Pixel[GuiController.imageHeight][GuiController.imageWidth];
+        Checkpoint checkpoint = Checkpoint.read(file, imageGraph);
+        int numberOfPopulations = checkpoint.getRandomSeeds().length;
 
-        for (int y = 0; y < GuiController.imageHeight; y++) {
-            for (int x = 0; x < GuiController.imageWidth; x++) {
-                Pixel pixel = new Pixel(x, y, colorArr[y][x]);
-                pixelArr[y][x] = pixel;
-                pixels.add(pixel);
-            }
+        if (numberOfPopulations != NUMBER_OF_ISLANDS) {
+            throw new IOException("Checkpoint of " + numberOfPopulations + " populations, while NUMBER_OF_ISLANDS is " + NUMBER_OF_ISLANDS);
         }
 
-        System.out.println("Genes generated in " + ((System.currentTimeMillis() - startTime)) + "ms");
-        return pixelArr;
+        if (numberOfPopulations > 1) {
+            islandModel = new IslandModel(imageGraph, checkpoint);
+        } else {
+            population = new Population(imageGraph, checkpoint.getPopulations(imageGraph).get(0));
+            randomSeed = checkpoint.getRandomSeeds()[0];
+            random = new SplittableRandom(randomSeed);
+        }
+
+        seed = checkpoint.getSeed();
+        generation = checkpoint.getGeneration();
+        lastCheckpointGeneration = generation;
+        System.out.println("Resumed generation " + generation + " of seed " + seed + " in " + (System.currentTimeMillis() - startTime) + "ms");
     }
 
-    private void findAndAddAllPixelNeighbors(Pixel[][] pixelArr) {
-        final long startTime = System.currentTimeMillis();
+    /**
+     * Evolves one generation, or MIGRATION_INTERVAL generations followed by a migration when there are several islands
+     */
+    public void tick() throws InterruptedException {
+        tick(MIGRATION_INTERVAL);
+    }
 
-        for (int y = 0; y < GuiController.imageHeight; y++) {
-            for (int x = 0; x < GuiController.imageWidth; x++) {
-                Pixel pixel = pixelArr[y][x];
+    /**
+     * Evolves like tick, but several islands evolve at most maxGenerations generations before they migrate, so a run
+     * can stop at a generation that is not a whole number of migration intervals
+     *
+     * @param maxGenerations at least 1
+     */
+    public void tick(int maxGenerations) throws InterruptedException {
+        if (generation == 0) {
+            System.out.println("Seed: " + seed);
+            if (NUMBER_OF_ISLANDS > 1) {
+                islandModel = new IslandModel(imageGraph, executorService, random);
+            } else {
+                population = new Population(imageGraph, executorService, random);
+            }
+            generation++;
+        } else if (islandModel != null) {
+            int numberOfGenerations = Math.min(MIGRATION_INTERVAL, maxGenerations);
+            islandModel.tick(generation, numberOfGenerations, executorService);
+            generation += numberOfGenerations;
+        } else {
+            population.tick(generation, executorService, random);
+            generation++;
+        }
 
-                if (x + 1 < GuiController.imageWidth) { // 1. East
-                    pixel.addPixelNeighbor(pixelArr[y][x + 1], Direction.EAST);
-                }
+        if (generation - lastCheckpointGeneration >= CHECKPOINT_INTERVAL) {
+            lastCheckpointGeneration = generation;
+            reseed();
+            if (checkpointFile != null) {
+                checkpoint();
+            }
+        }
+    }
 
-                if (x - 1 >= 0) { // 2. West
-                    pixel.addPixelNeighbor(pixelArr[y][x - 1], Direction.WEST);
-                }
+    /**
+     * Seeds the random numbers again from the current random numbers, at every checkpoint whether or not it is written,
+     * so runs with the same seed are the same with and without checkpoints. A run resumed from a checkpoint continues
+     * with the seeds stored in it
+     */
+    private void reseed() {
+        if (islandModel != null) {
+            islandModel.reseed();
+        } else {
+            randomSeed = random.nextLong();
+            random = new SplittableRandom(randomSeed);
+        }
+    }
 
-                if (y - 1 >= 0) { // 3. North
-                    pixel.addPixelNeighbor(pixelArr[y - 1][x], Direction.NORTH);
-                }
+    /**
+     * Captures the populations, and writes them on the checkpoint thread
+     */
+    private void checkpoint() {
+        if (pendingCheckpoint != null && !pendingCheckpoint.isDone()) {
+            System.out.println("Checkpoint of generation " + generation + " skipped, the previous checkpoint is still being written");
+            return;
+        }
 
-                if (y + 1 < GuiController.imageHeight) { // 4. South
-                    pixel.addPixelNeighbor(pixelArr[y + 1][x], Direction.SOUTH);
-                }
+        Checkpoint checkpoint;
+        if (islandModel != null) {
+            checkpoint = islandModel.checkpoint(seed, generation);
+        } else {
+            checkpoint = Checkpoint.capture(seed, generation, 0, new long[]{randomSeed}, Collections.singletonList(population.getIndividuals()));
+        }
 
-                if (y - 1 >= 0 && x + 1 < GuiController.imageWidth) { // 5. North East
-                    pixel.addPixelNeighbor(pixelArr[y - 1][x + 1], Direction.NORTH_EAST);
-                }
+        File file = checkpointFile;
+        int checkpointGeneration = generation;
+        pendingCheckpoint = checkpointExecutorService.submit(() -> {
+            final long startTime = System.currentTimeMillis();
+            try {
+                checkpoint.write(file, imageGraph);
+                System.out.println("Checkpoint of generation " + checkpointGeneration + " written in " + (System.currentTimeMillis() - startTime) + "ms");
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+    }
 
-                if (y + 1 < GuiController.imageHeight && x + 1 < GuiController.imageWidth) { // 6. South East
-                    pixel.addPixelNeighbor(pixelArr[y + 1][x + 1], Direction.SOUTH_EAST);
-                }
+    /**
+     * Stops the worker threads, unless they are shared. The genetic algorithm can not be ticked after shutdown
+     */
+    public void shutdown() {
+        if (ownsExecutorService) {
+            executorService.shutdownNow();
+        }
+        if (islandModel != null) {
+            islandModel.shutdown();
+        }
+        if (checkpointExecutorService != null) {
+            checkpointExecutorService.shutdown(); // The last checkpoint is still written
+        }
+    }
 
-                if (y - 1 >= 0 && x - 1 >= 0) { // 7. North West
-                    pixel.addPixelNeighbor(pixelArr[y - 1][x - 1], Direction.NORTH_WEST);
-                }
+    /**
+     * @return individuals of the population, or copies of the individuals of all islands ranked against each other
+     */
+    private List<Individual> getIndividuals() {
+        return islandModel == null ? population.getIndividuals() : islandModel.getIndividuals();
+    }
 
-                if (y + 1 < GuiController.imageHeight && x - 1 >= 0) { // 8. South West
-                    pixel.addPixelNeighbor(pixelArr[y + 1][x - 1], Direction.SOUTH_WEST);
-                }
-            }
-        }
+    /**
+     * @return segmentation of a random pareto optimal individual (the best individual in weighted sum GA)
+     */
+    public Segmentation getRandomParetoSegmentation() {
+        Individual individual = islandModel == null ? population.getRandomParetoIndividual() : islandModel.getRandomParetoIndividual();
+        return new Segmentation(imageGraph, individual);
+    }
 
-        System.out.println("Neighbors added in " + ((System.currentTimeMillis() - startTime)) + "ms");
+    /**
+     * @return generation, population data and a random pareto optimal segmentation, which later ticks do not change
+     */
+    public GenerationSnapshot getSnapshot() {
+        return new GenerationSnapshot(generation, getPopulationData(), getRandomParetoSegmentation());
     }
 
     public double[][] getPopulationData() {
-        List<Individual> individuals = population.getIndividuals();
+        List<Individual> individuals = getIndividuals();
         double[][] paretoData = new double[individuals.size()][3];
 
         final int RANK = 0;
@@ -171,62 +304,74 @@ public class GeneticAlgorithm {
 
     public void saveParetoOptimalIndividualsToFile(String fileName, Timestamp timestamp) throws
             InterruptedException {
-        List<Individual> individuals = population.getIndividuals();
-        ExecutorService executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        saveParetoOptimalIndividualsToFile(new File("."), fileName, timestamp);
+    }
+
+    /**
+     * Saves the boundaries of each pareto optimal individual as a JPEG file in directory
+     */
+    public void saveParetoOptimalIndividualsToFile(File directory, String fileName, Timestamp timestamp) throws
+            InterruptedException {
+        List<Individual> individuals = getIndividuals();
+        List<Callable<Void>> tasks = new ArrayList<>();
 
         individuals.sort(Comparator.comparingDouble(Individual::getOverallDeviation));
 
         for (Individual individual : individuals) {
             if (individual.getRank() == 1) {
-                executorService.execute(() -> {
+                tasks.add(() -> {
                     try {
-                        saveIndividualToImageFile(individual, individuals.indexOf(individual), fileName, timestamp);
+                        saveIndividualToImageFile(individual, individuals.indexOf(individual), directory, fileName, timestamp);
                     } catch (IOException e) {
                         e.printStackTrace();
                     }
+                    return null;
                 });
             }
         }
 
-        executorService.shutdown();
-        executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        executorService.invokeAll(tasks);
+    }
+
+    /**
+     * Saves the labels and objective functions of every pareto optimal individual, sorted by overall deviation,
+     * as one lossless ParetoFrontFile in directory
+     *
+     * @return the saved file
+     */
+    public File saveParetoFrontToFile(File directory, String fileName, Timestamp timestamp) throws IOException {
+        List<Individual> paretoFront = new ArrayList<>();
+        for (Individual individual : getIndividuals()) {
+            if (individual.getRank() == 1) {
+                paretoFront.add(individual);
+            }
+        }
+        paretoFront.sort(Comparator.comparingDouble(Individual::getOverallDeviation));
+
+        File frontFile = new File(directory, "solution=" + fileName + "_time=" + timestamp.getTime() + "_gen=" + generation + ".front");
+        ParetoFrontFile.write(frontFile, imageGraph.getWidth(), imageGraph.getHeight(), paretoFront);
+        return frontFile;
     }
 
-    private void saveIndividualToImageFile(Individual individual, int individualIndex, String fileName, Timestamp
-            timestamp) throws IOException {
-        BufferedImage image = new BufferedImage(GuiController.imageWidth, GuiController.imageHeight, BufferedImage.TYPE_INT_RGB);
+    private void saveIndividualToImageFile(Individual individual, int individualIndex, File directory, String fileName,
+                                           Timestamp timestamp) throws IOException {
+        BufferedImage image = new BufferedImage(imageGraph.getWidth(), imageGraph.getHeight(), BufferedImage.TYPE_INT_RGB);
         Graphics2D graphics = image.createGraphics();
         graphics.setColor(Color.WHITE);
         graphics.fillRect(1, 1, image.getWidth(), image.getHeight());
         graphics.setColor(Color.BLACK);
 
+        individual.calculateConvexHulls();
         for (Segment segment : individual.getSegments()) {
-            segment.calculateConvexHull();
-            for (Pixel segmentPixel : segment.getBoundaryPixels()) {
-                graphics.fillRect(segmentPixel.getX(), segmentPixel.getY(), 1, 1);
+            for (int pixelId : segment.getBoundaryPixels()) {
+                graphics.fillRect(imageGraph.getX(pixelId), imageGraph.getY(pixelId), 1, 1);
             }
         }
 
-        File jpegFile = new File("solution=" + fileName + "_time=" + timestamp.getTime() + "_gen=" + individual.getGeneration() + "_seg=" + individual.getSegments().size() + "_i=" + individualIndex + ".jpg");
+        File jpegFile = new File(directory, "solution=" + fileName + "_time=" + timestamp.getTime() + "_gen=" + individual.getGeneration() + "_seg=" + individual.getSegments().size() + "_i=" + individualIndex + ".jpg");
         ImageIO.write(image, "jpg", jpegFile);
     }
 
-    private void saveIndividualToTextFile(String fileName, Timestamp timestamp, int individualIndex,
-                                          byte[] segmentLists) throws IOException {
-        BufferedWriter writer = new BufferedWriter(new FileWriter("solution-file=" + fileName + "-time=" + timestamp.getTime() + "-index=" + individualIndex + ".txt"));
-        for (int i = 0; i < segmentLists.length; i++) {
-            writer.write(segmentLists[i]);
-
-            if (i != 0 && i % GuiController.imageWidth == 0) {
-                writer.newLine();
-            } else if (i != segmentLists.length - 1) {
-                writer.write(",");
-            }
-        }
-
-        writer.close();
-    }
-
     public int getGeneration() {
         return generation;
     }
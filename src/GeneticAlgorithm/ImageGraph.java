@@ -0,0 +1,181 @@
+package GeneticAlgorithm;
+
+import java.util.Arrays;
+
+/**
+ * Represents the image as a graph of pixels (Moore neighborhood), built once per image.
+ * A pixel is identified by its id y * width + x, and its neighbors are found by arithmetic instead of pointers
+ */
+class ImageGraph {
+    static final int NUMBER_OF_DIRECTIONS = 8; // {E, W, N, S, NE, SE, NW, SW}, same order as Direction
+
+    private static final int[] DX = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] DY = {0, 0, -1, 1, -1, 1, -1, 1};
+    private static final int[] OPPOSITE = {1, 0, 3, 2, 7, 6, 5, 4}; // {W, E, S, N, SW, NW, SE, NE}
+
+    // Directions to neighbors with a higher id, so each undirected edge is visited once
+    static final int[] FORWARD_DIRECTIONS = {
+            Direction.EAST.ordinal(), Direction.SOUTH.ordinal(), Direction.SOUTH_EAST.ordinal(), Direction.SOUTH_WEST.ordinal()
+    };
+
+    // Quantized weights per unit of color distance. Weights are bounded by the largest RGB distance, and ΔE*ab is lower
+    static final int WEIGHT_RESOLUTION = 4;
+    static final int NUMBER_OF_WEIGHTS = (int) Math.ceil(Math.sqrt(3 * 255 * 255) * WEIGHT_RESOLUTION) + 1;
+
+    private int width;
+    private int height;
+    private int[] rgb; // Packed RGB value of each pixel
+    private float[] colors; // Color of each pixel in GeneticAlgorithm.COLOR_SPACE, channel c of pixel p at c * size() + p
+    private float[] edgeWeights; // Euclidean color distance indexed by pixel * 8 + direction, -1 if there is no neighbor
+    private char[] quantizedEdgeWeights; // Edge weights rounded to 1 / WEIGHT_RESOLUTION, in [0, NUMBER_OF_WEIGHTS>
+    private byte[] degrees; // Number of neighbors of each pixel
+    private int[] neighborOffsets; // Id difference between a pixel and its neighbor in each direction
+    private MinimumSpanningTree minimumSpanningTree; // Shared by every individual of the image
+
+    private static final ColorDistanceKernel COLOR_DISTANCE_KERNEL = ColorDistanceKernel.INSTANCE;
+
+    /**
+     * @param rgb packed RGB value of each pixel, indexed by y * width + x. Any alpha is ignored
+     */
+    ImageGraph(int[] rgb, int width) {
+        this.width = width;
+        height = rgb.length / width;
+        this.rgb = new int[rgb.length];
+
+        for (int pixel = 0; pixel < rgb.length; pixel++) {
+            this.rgb[pixel] = rgb[pixel] & 0xFFFFFF;
+        }
+
+        colors = GeneticAlgorithm.COLOR_SPACE.toColorPlane(rgb);
+
+        neighborOffsets = new int[NUMBER_OF_DIRECTIONS];
+        for (int direction = 0; direction < NUMBER_OF_DIRECTIONS; direction++) {
+            neighborOffsets[direction] = DY[direction] * width + DX[direction];
+        }
+
+        calculateEdgeWeights();
+        minimumSpanningTree = new MinimumSpanningTree(this);
+    }
+
+    /**
+     * Calculates the weights of one direction for a whole row at a time, and uses each weight for both directions of the edge
+     */
+    private void calculateEdgeWeights() {
+        edgeWeights = new float[rgb.length * NUMBER_OF_DIRECTIONS];
+        quantizedEdgeWeights = new char[edgeWeights.length];
+        degrees = new byte[rgb.length];
+        Arrays.fill(edgeWeights, -1);
+
+        float[] rowWeights = new float[width];
+
+        for (int y = 0; y < height; y++) {
+            for (int direction : FORWARD_DIRECTIONS) {
+                if (y + DY[direction] >= height) {
+                    continue;
+                }
+
+                int firstX = Math.max(0, -DX[direction]);
+                int length = width - Math.abs(DX[direction]);
+                int firstPixel = y * width + firstX;
+                int opposite = OPPOSITE[direction];
+                COLOR_DISTANCE_KERNEL.distances(colors, rgb.length, firstPixel, neighborOffsets[direction], length, rowWeights);
+
+                for (int i = 0; i < length; i++) {
+                    int pixel = firstPixel + i;
+                    int neighbor = pixel + neighborOffsets[direction];
+                    char quantizedWeight = (char) Math.min(Math.round(rowWeights[i] * WEIGHT_RESOLUTION), NUMBER_OF_WEIGHTS - 1);
+
+                    edgeWeights[pixel * NUMBER_OF_DIRECTIONS + direction] = rowWeights[i];
+                    edgeWeights[neighbor * NUMBER_OF_DIRECTIONS + opposite] = rowWeights[i];
+                    quantizedEdgeWeights[pixel * NUMBER_OF_DIRECTIONS + direction] = quantizedWeight;
+                    quantizedEdgeWeights[neighbor * NUMBER_OF_DIRECTIONS + opposite] = quantizedWeight;
+                    degrees[pixel]++;
+                    degrees[neighbor]++;
+                }
+            }
+        }
+    }
+
+    static int getOppositeDirection(int direction) {
+        return OPPOSITE[direction];
+    }
+
+    /**
+     * @return id of the neighbor in direction, or -1 if the pixel has no neighbor in that direction
+     */
+    int getNeighbor(int pixel, int direction) {
+        return edgeWeights[pixel * NUMBER_OF_DIRECTIONS + direction] < 0 ? -1 : pixel + neighborOffsets[direction];
+    }
+
+    /**
+     * @param edge pixel * 8 + direction
+     * @return id of the neighbor the edge points to
+     */
+    int getEdgeNeighbor(int edge) {
+        return edge / NUMBER_OF_DIRECTIONS + neighborOffsets[edge % NUMBER_OF_DIRECTIONS];
+    }
+
+    /**
+     * @param edge pixel * 8 + direction
+     * @return color distance between the pixel and its neighbor, or -1 if there is no neighbor
+     */
+    float getEdgeWeight(int edge) {
+        return edgeWeights[edge];
+    }
+
+    /**
+     * @param edge pixel * 8 + direction of an existing edge
+     * @return color distance rounded to 1 / WEIGHT_RESOLUTION, in [0, NUMBER_OF_WEIGHTS>
+     */
+    int getQuantizedEdgeWeight(int edge) {
+        return quantizedEdgeWeights[edge];
+    }
+
+    MinimumSpanningTree getMinimumSpanningTree() {
+        return minimumSpanningTree;
+    }
+
+    /**
+     * @param pixelIds ids of the pixels to measure
+     * @param color    color in GeneticAlgorithm.COLOR_SPACE
+     * @return sum of the color distances between each pixel and color
+     */
+    double getTotalColorDistance(int[] pixelIds, float[] color) {
+        return COLOR_DISTANCE_KERNEL.sumOfDistances(colors, rgb.length, pixelIds, color);
+    }
+
+    int getDegree(int pixel) {
+        return degrees[pixel];
+    }
+
+    int getRGB(int pixel) {
+        return rgb[pixel];
+    }
+
+    /**
+     * @return one channel of the color of the pixel in GeneticAlgorithm.COLOR_SPACE
+     */
+    float getColor(int pixel, int channel) {
+        return colors[channel * rgb.length + pixel];
+    }
+
+    int getX(int pixel) {
+        return pixel % width;
+    }
+
+    int getY(int pixel) {
+        return pixel / width;
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    int size() {
+        return rgb.length;
+    }
+}
@@ -2,18 +2,18 @@ package GeneticAlgorithm;
 
 import Utils.Utils;
 
-import java.util.Map;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.ArrayList;
-import java.util.PriorityQueue;
 
 /**
  * Represents one chromosome
  */
 class Individual {
-    // Lists
-    private List<Segment> segments; // List of segments (set of pixels)
+    private ImageGraph imageGraph;
+
+    // Chromosome
+    private int[] labels; // Segment label of each pixel, indexed by pixel id
+    private List<Segment> segments; // Views of the pixels of each label
 
     // Objective functions
     private double overallDeviation; // Objective function 1
@@ -28,10 +28,11 @@ class Individual {
 
     private int generation;
 
-    Individual(int generation) {
+    Individual(ImageGraph imageGraph, int generation) {
+        this.imageGraph = imageGraph;
         this.generation = generation;
-        segments = new ArrayList<>();
-        generateInitialIndividual();
+        int numberOfSegments = generateInitialIndividual();
+        segments = Segment.generateSegments(imageGraph, labels, numberOfSegments);
         calculateObjectiveFunctions();
 
         if (!GeneticAlgorithm.MULTI_OBJECTIVE) {
@@ -39,9 +40,15 @@ class Individual {
         }
     }
 
-    Individual(List<Segment> segments, int generation) {
+    /**
+     * @param labels   segment label of each pixel, in [0, segments.size()>
+     * @param segments segments indexed by label. Only segments without cached objective functions are evaluated
+     */
+    Individual(ImageGraph imageGraph, int[] labels, List<Segment> segments, int generation) {
+        this.imageGraph = imageGraph;
         this.generation = generation;
-        this.segments = new ArrayList<>(segments);
+        this.labels = labels;
+        this.segments = segments;
         calculateObjectiveFunctions();
 
         if (!GeneticAlgorithm.MULTI_OBJECTIVE) {
@@ -50,44 +57,41 @@ class Individual {
     }
 
     /**
-     * Based on Minimum Spanning Tree (MST)
+     * Restores an individual from a checkpoint, with its checkpointed rank and crowding distance
+     *
+     * @param segments restored segments, which are already evaluated
      */
-    private void generateInitialIndividual() {
-        Map<Integer, Segment> visitedPixels = new HashMap<>();
-        PriorityQueue<Edge> possibleNeighbors = new PriorityQueue<>(); // Support array for all possible visits. Sorted by colorDistance
-
-        int numberOfSegments = Utils.randomInt(GeneticAlgorithm.MIN_SEGMENTS, GeneticAlgorithm.MAX_SEGMENTS);
-
-        // Initialize segments, add neighbors of root pixels
-        while (segments.size() != numberOfSegments) {
-            Pixel rootPixel;
+    Individual(ImageGraph imageGraph, int[] labels, List<Segment> segments, int generation, int rank, double crowdingDistance) {
+        this(imageGraph, labels, segments, generation);
+        this.rank = rank;
+        this.crowdingDistance = crowdingDistance;
+    }
 
-            do {
-                int randomIndex = Utils.randomIndex(GeneticAlgorithm.pixels.size());
-                rootPixel = GeneticAlgorithm.pixels.get(randomIndex); // Random first best pixel
-            } while (visitedPixels.containsKey(rootPixel.getId()));
+    /**
+     * @return individual with the same chromosome, which can be ranked in another population than this individual
+     */
+    Individual copy() {
+        return new Individual(imageGraph, labels, segments, generation);
+    }
 
-            Segment newSegment = new Segment();
-            newSegment.addSegmentPixel(rootPixel);
-            segments.add(newSegment);
+    /**
+     * Based on Minimum Spanning Tree (MST). Cuts random heavy edges of the MST of the image, or grows trees from
+     * random roots if the image has too few edges to cut
+     *
+     * @return number of segments
+     */
+    private int generateInitialIndividual() {
+        labels = new int[imageGraph.size()];
 
-            visitedPixels.put(rootPixel.getId(), newSegment);
-            possibleNeighbors.addAll(rootPixel.getEdges());
+        int numberOfSegments = Utils.randomInt(GeneticAlgorithm.MIN_SEGMENTS, GeneticAlgorithm.MAX_SEGMENTS);
+        if (imageGraph.getMinimumSpanningTree().cut(numberOfSegments, labels) == numberOfSegments) {
+            return numberOfSegments;
         }
 
-        // Add all neighbors
-        while (!possibleNeighbors.isEmpty()) {
-            Edge bestEdge = possibleNeighbors.remove();
-            Pixel bestNeighbor = bestEdge.getNeighbor();
-            Pixel bestPixel = bestEdge.getPixel();
-            Segment segment = visitedPixels.get(bestPixel.getId());
-
-            if (!visitedPixels.containsKey(bestNeighbor.getId())) {
-                possibleNeighbors.addAll(bestNeighbor.getEdges());
-                visitedPixels.put(bestNeighbor.getId(), segment);
-                segment.addSegmentPixel(bestNeighbor);
-            }
-        }
+        Arrays.fill(labels, -1);
+        RegionGrowing.growMinimumSpanningTrees(imageGraph, labels, null, numberOfSegments, 0, null);
+
+        return numberOfSegments;
     }
 
     /**
@@ -95,19 +99,19 @@ class Individual {
      */
     void calculateConvexHulls() {
         for (Segment segment : segments) {
-            segment.calculateConvexHull();
+            segment.calculateConvexHull(labels);
         }
     }
 
     /**
-     * Calculates overall deviation and connectivity
+     * Calculates overall deviation and connectivity as the sum of the (cached) values of each segment
      */
     private void calculateObjectiveFunctions() {
         overallDeviation = 0.0;
         connectivity = 0.0;
 
         for (Segment segment : segments) {
-            segment.calculateObjectiveFunctions();
+            segment.calculateObjectiveFunctions(labels);
             overallDeviation += segment.getOverallDeviation();
             connectivity += segment.getConnectivity();
         }
@@ -128,6 +132,10 @@ class Individual {
         fitness = (overallDeviation * GeneticAlgorithm.OVERALL_DEVIATION_WEIGHT) + (connectivity * GeneticAlgorithm.CONNECTIVITY_WEIGHT);
     }
 
+    int[] getLabels() {
+        return labels;
+    }
+
     List<Segment> getSegments() {
         return segments;
     }
@@ -0,0 +1,248 @@
+package GeneticAlgorithm;
+
+import Utils.Utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Island model: several populations evolve independently, each driven by its own thread, and exchange pareto optimal
+ * individuals every MIGRATION_INTERVAL generations along MIGRATION_TOPOLOGY.
+ * The island threads only wait for offspring, which are created on the shared worker pool
+ */
+class IslandModel {
+    private final Population[] islands;
+    private final SplittableRandom[] seeds; // Seeds of each island, so an island is the same whatever thread drives it
+    private SplittableRandom migrationRandom; // Chooses the emigrants
+    private final long[] randomSeeds; // Seeds of the last reseed of each island
+    private long migrationSeed; // Seed of the last reseed of migrationRandom
+    private final ExecutorService islandExecutorService;
+
+    /**
+     * @param random seeds every island and the migrations
+     */
+    IslandModel(ImageGraph imageGraph, ExecutorService executorService, SplittableRandom random) throws InterruptedException {
+        islandExecutorService = createIslandExecutorService();
+        islands = new Population[GeneticAlgorithm.NUMBER_OF_ISLANDS];
+        seeds = new SplittableRandom[islands.length];
+        randomSeeds = new long[islands.length];
+        List<Callable<Population>> tasks = new ArrayList<>(islands.length);
+
+        for (int island = 0; island < islands.length; island++) {
+            SplittableRandom islandSeeds = random.split();
+            seeds[island] = islandSeeds;
+            tasks.add(() -> new Population(imageGraph, executorService, islandSeeds));
+        }
+        migrationRandom = random.split();
+
+        invokeAll(tasks).toArray(islands);
+    }
+
+    /**
+     * Restores the islands of a checkpoint
+     */
+    IslandModel(ImageGraph imageGraph, Checkpoint checkpoint) throws IOException {
+        islandExecutorService = createIslandExecutorService();
+        List<List<Individual>> populations = checkpoint.getPopulations(imageGraph);
+        islands = new Population[populations.size()];
+        seeds = new SplittableRandom[islands.length];
+        randomSeeds = checkpoint.getRandomSeeds().clone();
+
+        for (int island = 0; island < islands.length; island++) {
+            islands[island] = new Population(imageGraph, populations.get(island));
+            seeds[island] = new SplittableRandom(randomSeeds[island]);
+        }
+        migrationSeed = checkpoint.getMigrationSeed();
+        migrationRandom = new SplittableRandom(migrationSeed);
+    }
+
+    private static ExecutorService createIslandExecutorService() {
+        AtomicInteger numberOfThreads = new AtomicInteger();
+        return Executors.newFixedThreadPool(GeneticAlgorithm.NUMBER_OF_ISLANDS, runnable -> {
+            Thread thread = new Thread(runnable, "genetic-algorithm-island-" + numberOfThreads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Seeds the random numbers of each island and the migrations again, from their current random numbers.
+     * Checkpoints store these seeds, so a run resumed from a checkpoint continues with the same random numbers
+     */
+    void reseed() {
+        for (int island = 0; island < islands.length; island++) {
+            randomSeeds[island] = seeds[island].nextLong();
+            seeds[island] = new SplittableRandom(randomSeeds[island]);
+        }
+
+        migrationSeed = migrationRandom.nextLong();
+        migrationRandom = new SplittableRandom(migrationSeed);
+    }
+
+    /**
+     * Captures the islands, with the seeds of the last reseed
+     */
+    Checkpoint checkpoint(long seed, int generation) {
+        List<List<Individual>> populations = new ArrayList<>(islands.length);
+        for (Population population : islands) {
+            populations.add(population.getIndividuals());
+        }
+
+        return Checkpoint.capture(seed, generation, migrationSeed, randomSeeds.clone(), populations);
+    }
+
+    /**
+     * Evolves every island numberOfGenerations generations without waiting for the other islands, then migrates
+     *
+     * @param generation generation of the first offspring
+     */
+    void tick(int generation, int numberOfGenerations, ExecutorService executorService) throws InterruptedException {
+        final long startTime = System.currentTimeMillis();
+        List<Callable<Population>> tasks = new ArrayList<>(islands.length);
+
+        for (int island = 0; island < islands.length; island++) {
+            Population population = islands[island];
+            SplittableRandom islandSeeds = seeds[island];
+            tasks.add(() -> {
+                for (int i = 0; i < numberOfGenerations; i++) {
+                    population.tick(generation + i, executorService, islandSeeds);
+                }
+                return population;
+            });
+        }
+
+        invokeAll(tasks);
+        migrate();
+        System.out.println(islands.length + " islands evolved " + numberOfGenerations + " generations in " + ((System.currentTimeMillis() - startTime) / 1000) + "s");
+    }
+
+    /**
+     * Sends copies of random pareto optimal individuals (the best individuals in weighted sum GA) of each island to its
+     * destinations. Emigrants are chosen before any island receives immigrants
+     */
+    private void migrate() {
+        List<List<Individual>> immigrants = new ArrayList<>(islands.length);
+        for (int island = 0; island < islands.length; island++) {
+            immigrants.add(new ArrayList<>());
+        }
+
+        for (int island = 0; island < islands.length; island++) {
+            List<Individual> emigrants = selectEmigrants(islands[island]);
+
+            for (int destination : GeneticAlgorithm.MIGRATION_TOPOLOGY.getDestinations(island, islands.length)) {
+                for (Individual emigrant : emigrants) {
+                    immigrants.get(destination).add(emigrant.copy());
+                }
+            }
+        }
+
+        for (int island = 0; island < islands.length; island++) {
+            islands[island].immigrate(immigrants.get(island));
+        }
+    }
+
+    private List<Individual> selectEmigrants(Population population) {
+        List<Individual> candidates = new ArrayList<>();
+
+        if (GeneticAlgorithm.MULTI_OBJECTIVE) {
+            for (Individual individual : population.getIndividuals()) {
+                if (individual.getRank() == 1) {
+                    candidates.add(individual);
+                }
+            }
+        } else {
+            // Sorted by fitness after each generation
+            candidates.addAll(population.getIndividuals().subList(0, Math.min(GeneticAlgorithm.NUMBER_OF_MIGRANTS, population.getIndividuals().size())));
+        }
+
+        // Partial shuffle, the emigrants are the first candidates
+        int numberOfEmigrants = Math.min(GeneticAlgorithm.NUMBER_OF_MIGRANTS, candidates.size());
+        for (int i = 0; i < numberOfEmigrants; i++) {
+            int j = i + migrationRandom.nextInt(candidates.size() - i);
+            Individual candidate = candidates.get(j);
+            candidates.set(j, candidates.get(i));
+            candidates.set(i, candidate);
+        }
+
+        return candidates.subList(0, numberOfEmigrants);
+    }
+
+    /**
+     * @return copies of the individuals of every island, ranked against each other
+     */
+    List<Individual> getIndividuals() {
+        List<Individual> individuals = new ArrayList<>();
+        for (Population population : islands) {
+            for (Individual individual : population.getIndividuals()) {
+                individuals.add(individual.copy());
+            }
+        }
+
+        if (GeneticAlgorithm.MULTI_OBJECTIVE) {
+            double[][] objectives = new double[individuals.size()][];
+            for (int i = 0; i < objectives.length; i++) {
+                objectives[i] = new double[]{individuals.get(i).getOverallDeviation(), individuals.get(i).getConnectivity()};
+            }
+
+            int[] ranks = NonDominatedSorting.sort(objectives);
+            for (int i = 0; i < ranks.length; i++) {
+                individuals.get(i).setRank(ranks[i]);
+            }
+        }
+
+        return individuals;
+    }
+
+    /**
+     * @return random individual that is pareto optimal across all islands (the best individual in weighted sum GA)
+     */
+    Individual getRandomParetoIndividual() {
+        List<Individual> individuals = getIndividuals();
+
+        if (GeneticAlgorithm.MULTI_OBJECTIVE) {
+            Individual individual;
+            do {
+                individual = individuals.get(Utils.randomIndex(individuals.size()));
+            } while (individual.getRank() != 1);
+
+            return individual;
+        }
+
+        Individual bestIndividual = individuals.get(0);
+        for (Individual individual : individuals) {
+            if (individual.getFitness() < bestIndividual.getFitness()) {
+                bestIndividual = individual;
+            }
+        }
+        return bestIndividual;
+    }
+
+    /**
+     * Stops the island threads
+     */
+    void shutdown() {
+        islandExecutorService.shutdownNow();
+    }
+
+    private <T> List<T> invokeAll(List<Callable<T>> tasks) throws InterruptedException {
+        List<T> results = new ArrayList<>(tasks.size());
+
+        for (Future<T> future : islandExecutorService.invokeAll(tasks)) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Island could not evolve", e.getCause());
+            }
+        }
+
+        return results;
+    }
+}
@@ -0,0 +1,42 @@
+package GeneticAlgorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Which islands receive the emigrants of an island in the island model
+ */
+enum MigrationTopology {
+    /**
+     * Each island sends to the next one, so individuals spread slowly and the islands stay diverse
+     */
+    RING {
+        @Override
+        List<Integer> getDestinations(int island, int numberOfIslands) {
+            List<Integer> destinations = new ArrayList<>(1);
+            destinations.add((island + 1) % numberOfIslands);
+            return destinations;
+        }
+    },
+
+    /**
+     * Each island sends to every other island
+     */
+    FULLY_CONNECTED {
+        @Override
+        List<Integer> getDestinations(int island, int numberOfIslands) {
+            List<Integer> destinations = new ArrayList<>(numberOfIslands - 1);
+            for (int destination = 0; destination < numberOfIslands; destination++) {
+                if (destination != island) {
+                    destinations.add(destination);
+                }
+            }
+            return destinations;
+        }
+    };
+
+    /**
+     * @return islands that receive the emigrants of island
+     */
+    abstract List<Integer> getDestinations(int island, int numberOfIslands);
+}
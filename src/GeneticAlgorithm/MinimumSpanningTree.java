@@ -0,0 +1,192 @@
+package GeneticAlgorithm;
+
+import Utils.Utils;
+
+import java.util.Arrays;
+
+/**
+ * Minimum spanning tree of the whole image, built once per image (Kruskal over the quantized edge weights).
+ * Removing k - 1 tree edges splits the image into k connected segments, which are labeled in linear time
+ * by visiting the pixels in tree order
+ */
+class MinimumSpanningTree {
+    static final double MIN_CUT_FRACTION = 0.005; // Smallest part of the image a cut can separate from the rest
+    static final int MAX_CUT_CANDIDATES = 10 * GeneticAlgorithm.MAX_SEGMENTS;
+
+    private int[] order; // Pixel ids in breadth first order from the root, so a parent is always before its children
+    private int[] parents; // Parent of each pixel, -1 for the root
+    private int[] cutCandidates; // Heaviest tree edges that separate large enough parts, as the child pixel of the edge
+
+    MinimumSpanningTree(ImageGraph imageGraph) {
+        int[] treeEdges = calculateTreeEdges(imageGraph);
+        calculateOrder(imageGraph, treeEdges);
+        calculateCutCandidates(imageGraph, treeEdges);
+    }
+
+    /**
+     * Kruskal, with the edges sorted by counting sort on their quantized weights
+     *
+     * @return tree edges (pixel * 8 + direction) sorted by weight
+     */
+    private static int[] calculateTreeEdges(ImageGraph imageGraph) {
+        int size = imageGraph.size();
+        int[] counts = new int[ImageGraph.NUMBER_OF_WEIGHTS + 1];
+        int numberOfEdges = 0;
+
+        for (int pixel = 0; pixel < size; pixel++) {
+            for (int direction : ImageGraph.FORWARD_DIRECTIONS) {
+                if (imageGraph.getNeighbor(pixel, direction) != -1) {
+                    counts[imageGraph.getQuantizedEdgeWeight(pixel * ImageGraph.NUMBER_OF_DIRECTIONS + direction) + 1]++;
+                    numberOfEdges++;
+                }
+            }
+        }
+
+        for (int weight = 1; weight < counts.length; weight++) {
+            counts[weight] += counts[weight - 1];
+        }
+
+        int[] sortedEdges = new int[numberOfEdges];
+        for (int pixel = 0; pixel < size; pixel++) {
+            for (int direction : ImageGraph.FORWARD_DIRECTIONS) {
+                if (imageGraph.getNeighbor(pixel, direction) != -1) {
+                    int edge = pixel * ImageGraph.NUMBER_OF_DIRECTIONS + direction;
+                    sortedEdges[counts[imageGraph.getQuantizedEdgeWeight(edge)]++] = edge;
+                }
+            }
+        }
+
+        // Union find with path halving and union by size
+        int[] roots = new int[size];
+        int[] componentSizes = new int[size];
+        for (int pixel = 0; pixel < size; pixel++) {
+            roots[pixel] = pixel;
+            componentSizes[pixel] = 1;
+        }
+
+        int[] treeEdges = new int[size - 1];
+        int numberOfTreeEdges = 0;
+
+        for (int i = 0; i < sortedEdges.length && numberOfTreeEdges < treeEdges.length; i++) {
+            int edge = sortedEdges[i];
+            int root1 = find(roots, edge / ImageGraph.NUMBER_OF_DIRECTIONS);
+            int root2 = find(roots, imageGraph.getEdgeNeighbor(edge));
+
+            if (root1 != root2) {
+                if (componentSizes[root1] < componentSizes[root2]) {
+                    int swap = root1;
+                    root1 = root2;
+                    root2 = swap;
+                }
+                roots[root2] = root1;
+                componentSizes[root1] += componentSizes[root2];
+                treeEdges[numberOfTreeEdges++] = edge;
+            }
+        }
+
+        return treeEdges;
+    }
+
+    private static int find(int[] roots, int pixel) {
+        while (roots[pixel] != pixel) {
+            roots[pixel] = roots[roots[pixel]];
+            pixel = roots[pixel];
+        }
+        return pixel;
+    }
+
+    /**
+     * Roots the tree in pixel 0, and finds the parent of each pixel by a breadth first search
+     */
+    private void calculateOrder(ImageGraph imageGraph, int[] treeEdges) {
+        int size = imageGraph.size();
+        byte[] treeDirections = new byte[size]; // Bit per direction that is a tree edge
+        for (int edge : treeEdges) {
+            int direction = edge % ImageGraph.NUMBER_OF_DIRECTIONS;
+            treeDirections[edge / ImageGraph.NUMBER_OF_DIRECTIONS] |= 1 << direction;
+            treeDirections[imageGraph.getEdgeNeighbor(edge)] |= 1 << ImageGraph.getOppositeDirection(direction);
+        }
+
+        order = new int[size];
+        parents = new int[size];
+        parents[0] = -1;
+        int numberOfVisited = 1;
+
+        for (int i = 0; i < numberOfVisited; i++) {
+            int pixel = order[i];
+
+            for (int direction = 0; direction < ImageGraph.NUMBER_OF_DIRECTIONS; direction++) {
+                if ((treeDirections[pixel] & (1 << direction)) != 0) {
+                    int child = imageGraph.getNeighbor(pixel, direction);
+
+                    if (child != parents[pixel]) {
+                        parents[child] = pixel;
+                        order[numberOfVisited++] = child;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Visits the tree edges from the heaviest, and keeps those where both parts are at least MIN_CUT_FRACTION of the image
+     */
+    private void calculateCutCandidates(ImageGraph imageGraph, int[] treeEdges) {
+        int size = imageGraph.size();
+        int minCutSize = Math.max(1, (int) (size * MIN_CUT_FRACTION));
+
+        int[] subtreeSizes = new int[size]; // Number of pixels below each pixel in the tree, including itself
+        for (int i = size - 1; i >= 0; i--) {
+            subtreeSizes[order[i]]++;
+            if (i > 0) {
+                subtreeSizes[parents[order[i]]] += subtreeSizes[order[i]];
+            }
+        }
+
+        int[] candidates = new int[Math.min(MAX_CUT_CANDIDATES, treeEdges.length)];
+        int numberOfCandidates = 0;
+
+        for (int i = treeEdges.length - 1; i >= 0 && numberOfCandidates < candidates.length; i--) {
+            int pixel = treeEdges[i] / ImageGraph.NUMBER_OF_DIRECTIONS;
+            int neighbor = imageGraph.getEdgeNeighbor(treeEdges[i]);
+            int child = parents[pixel] == neighbor ? pixel : neighbor;
+            int subtreeSize = subtreeSizes[child];
+
+            if (subtreeSize >= minCutSize && size - subtreeSize >= minCutSize) {
+                candidates[numberOfCandidates++] = child;
+            }
+        }
+
+        cutCandidates = Arrays.copyOf(candidates, numberOfCandidates);
+    }
+
+    /**
+     * Removes numberOfSegments - 1 random edges among the cut candidates, and labels the parts of the tree
+     *
+     * @param labels new label array (all 0) to write the segments to
+     * @return number of segments, lower than requested if there are not enough cut candidates
+     */
+    int cut(int numberOfSegments, int[] labels) {
+        int numberOfCuts = Math.min(numberOfSegments - 1, cutCandidates.length);
+        int[] candidates = cutCandidates.clone();
+
+        // Partial shuffle, the cuts are the first numberOfCuts candidates
+        for (int i = 0; i < numberOfCuts; i++) {
+            int j = i + Utils.randomIndex(candidates.length - i);
+            int candidate = candidates[j];
+            candidates[j] = candidates[i];
+            candidates[i] = candidate;
+            labels[candidate] = -1; // Marks the start of a new segment
+        }
+
+        int label = 0;
+        labels[order[0]] = label++;
+
+        for (int i = 1; i < order.length; i++) {
+            int pixel = order[i];
+            labels[pixel] = labels[pixel] == -1 ? label++ : labels[parents[pixel]];
+        }
+
+        return label;
+    }
+}
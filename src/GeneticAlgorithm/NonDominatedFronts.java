@@ -0,0 +1,163 @@
+package GeneticAlgorithm;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Non-dominated fronts of a population, ranked by overall deviation and connectivity, which are kept consistent when
+ * individuals are added or removed instead of sorting the whole population again.
+ * Each front is sorted by overall deviation, and so by decreasing connectivity. A solution is then dominated by a front
+ * if the member with the highest overall deviation that is not above its own dominates it, which is found by binary search.
+ * Only individuals that change front get a new rank
+ */
+class NonDominatedFronts {
+    private static final Comparator<Individual> OBJECTIVE_ORDER =
+            Comparator.comparingDouble(Individual::getOverallDeviation).thenComparingDouble(Individual::getConnectivity);
+
+    private final List<List<Individual>> fronts = new ArrayList<>(); // Front with rank r at index r - 1
+
+    /**
+     * Ranks every individual from scratch
+     */
+    NonDominatedFronts(List<Individual> individuals) {
+        double[][] objectives = new double[individuals.size()][];
+        for (int i = 0; i < objectives.length; i++) {
+            Individual individual = individuals.get(i);
+            objectives[i] = new double[]{individual.getOverallDeviation(), individual.getConnectivity()};
+        }
+
+        int[] ranks = NonDominatedSorting.sort(objectives);
+
+        for (int i = 0; i < ranks.length; i++) {
+            while (fronts.size() < ranks[i]) {
+                fronts.add(new ArrayList<>());
+            }
+            individuals.get(i).setRank(ranks[i]);
+            fronts.get(ranks[i] - 1).add(individuals.get(i));
+        }
+
+        for (List<Individual> front : fronts) {
+            front.sort(OBJECTIVE_ORDER);
+        }
+    }
+
+    /**
+     * Inserts individual in the first front that does not dominate it. Members of that front dominated by individual
+     * move one front down, and push down the members of the next front they dominate, and so on
+     */
+    void add(Individual individual) {
+        // Ranks are monotone: an individual dominated by a front is dominated by every front before it
+        int low = 0;
+        int high = fronts.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (isDominated(fronts.get(middle), individual)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        List<Individual> moved = new ArrayList<>(1);
+        moved.add(individual);
+
+        for (int index = low; !moved.isEmpty(); index++) {
+            if (index == fronts.size()) {
+                fronts.add(new ArrayList<>());
+            }
+
+            List<Individual> remaining = new ArrayList<>();
+            List<Individual> dominated = new ArrayList<>();
+            for (Individual member : fronts.get(index)) {
+                (isDominated(moved, member) ? dominated : remaining).add(member);
+            }
+
+            for (Individual movedIndividual : moved) {
+                movedIndividual.setRank(index + 1);
+            }
+            fronts.set(index, merge(remaining, moved));
+            moved = dominated;
+        }
+    }
+
+    /**
+     * Removes individual from its front. Members of the next front that were only dominated by individual move one front
+     * up, and let the members of the front after that which were only dominated by them move up, and so on
+     */
+    void remove(Individual individual) {
+        int index = individual.getRank() - 1;
+        fronts.get(index).remove(individual);
+
+        List<Individual> removed = new ArrayList<>(1);
+        removed.add(individual);
+
+        while (!removed.isEmpty() && index + 1 < fronts.size()) {
+            List<Individual> front = fronts.get(index);
+            List<Individual> remaining = new ArrayList<>();
+            List<Individual> movedUp = new ArrayList<>();
+
+            for (Individual member : fronts.get(index + 1)) {
+                if (isDominated(removed, member) && !isDominated(front, member)) {
+                    movedUp.add(member);
+                } else {
+                    remaining.add(member);
+                }
+            }
+
+            for (Individual movedIndividual : movedUp) {
+                movedIndividual.setRank(index + 1);
+            }
+            fronts.set(index, merge(front, movedUp));
+            fronts.set(index + 1, remaining);
+            removed = movedUp;
+            index++;
+        }
+
+        while (!fronts.isEmpty() && fronts.get(fronts.size() - 1).isEmpty()) {
+            fronts.remove(fronts.size() - 1);
+        }
+    }
+
+    /**
+     * @return individuals with rank, sorted by overall deviation. Changed by the next add or remove
+     */
+    List<Individual> getFront(int rank) {
+        return rank <= fronts.size() ? fronts.get(rank - 1) : new ArrayList<>();
+    }
+
+    /**
+     * @param front non-dominated individuals sorted by overall deviation
+     */
+    private static boolean isDominated(List<Individual> front, Individual individual) {
+        // Last member with overall deviation lower than or equal to individual, which has the lowest connectivity of those
+        int low = 0;
+        int high = front.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (front.get(middle).getOverallDeviation() <= individual.getOverallDeviation()) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low > 0 && front.get(low - 1).dominates(individual);
+    }
+
+    private static List<Individual> merge(List<Individual> front, List<Individual> individuals) {
+        List<Individual> merged = new ArrayList<>(front.size() + individuals.size());
+        int i = 0;
+        int j = 0;
+
+        while (i < front.size() || j < individuals.size()) {
+            if (j == individuals.size() || (i < front.size() && OBJECTIVE_ORDER.compare(front.get(i), individuals.get(j)) <= 0)) {
+                merged.add(front.get(i++));
+            } else {
+                merged.add(individuals.get(j++));
+            }
+        }
+
+        return merged;
+    }
+}
@@ -0,0 +1,133 @@
+package GeneticAlgorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Non-dominated sorting of objective vectors (all objectives minimized).
+ * Two objectives are sorted in O(N log N) by sweeping over the solutions sorted by the first objective,
+ * more objectives fall back to Efficient Non-dominated Sort with sequential search (ENS-SS) by Zhang et al.
+ */
+class NonDominatedSorting {
+
+    private NonDominatedSorting() {
+    }
+
+    /**
+     * @param objectives objective vectors, objectives[i][m] is objective m of solution i
+     * @return rank of each solution, 1 is the pareto front
+     */
+    static int[] sort(double[][] objectives) {
+        if (objectives.length == 0) {
+            return new int[0];
+        }
+
+        return objectives[0].length == 2 ? sortBiObjective(objectives) : sortEfficient(objectives);
+    }
+
+    /**
+     * Visits the solutions sorted by (objective 1, objective 2). A solution is then dominated by a front if the
+     * lowest objective 2 in the front is lower or equal to its own, and the lowest objective 2 of the fronts is increasing
+     * with rank, so the front of each solution is found by binary search
+     */
+    private static int[] sortBiObjective(double[][] objectives) {
+        Integer[] order = lexicographicOrder(objectives);
+        int[] ranks = new int[objectives.length];
+        double[] frontMinimums = new double[objectives.length]; // Lowest objective 2 in each front
+        int numberOfFronts = 0;
+
+        for (int i = 0; i < order.length; i++) {
+            int solution = order[i];
+
+            if (i > 0 && Arrays.equals(objectives[solution], objectives[order[i - 1]])) {
+                ranks[solution] = ranks[order[i - 1]]; // Equal solutions do not dominate each other
+                continue;
+            }
+
+            double objective2 = objectives[solution][1];
+            int low = 0;
+            int high = numberOfFronts;
+
+            while (low < high) { // First front with a minimum higher than objective2
+                int middle = (low + high) >>> 1;
+                if (frontMinimums[middle] <= objective2) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            frontMinimums[low] = objective2;
+            if (low == numberOfFronts) {
+                numberOfFronts++;
+            }
+            ranks[solution] = low + 1;
+        }
+
+        return ranks;
+    }
+
+    /**
+     * Visits the solutions sorted lexicographically, so no solution can be dominated by a later one.
+     * Each solution is placed in the first front where no member dominates it, checking the last added members first
+     */
+    private static int[] sortEfficient(double[][] objectives) {
+        Integer[] order = lexicographicOrder(objectives);
+        int[] ranks = new int[objectives.length];
+        List<List<Integer>> fronts = new ArrayList<>();
+
+        for (int solution : order) {
+            int front = 0;
+
+            while (front < fronts.size() && isDominatedByFront(objectives, solution, fronts.get(front))) {
+                front++;
+            }
+
+            if (front == fronts.size()) {
+                fronts.add(new ArrayList<>());
+            }
+
+            fronts.get(front).add(solution);
+            ranks[solution] = front + 1;
+        }
+
+        return ranks;
+    }
+
+    private static boolean isDominatedByFront(double[][] objectives, int solution, List<Integer> front) {
+        for (int i = front.size() - 1; i >= 0; i--) {
+            if (dominates(objectives[front.get(i)], objectives[solution])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A dominates B when A is lower or equal in every objective, and lower in at least one
+     */
+    static boolean dominates(double[] objectives, double[] otherObjectives) {
+        boolean lower = false;
+
+        for (int m = 0; m < objectives.length; m++) {
+            if (objectives[m] > otherObjectives[m]) {
+                return false;
+            } else if (objectives[m] < otherObjectives[m]) {
+                lower = true;
+            }
+        }
+
+        return lower;
+    }
+
+    private static Integer[] lexicographicOrder(double[][] objectives) {
+        Integer[] order = new Integer[objectives.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+
+        Arrays.sort(order, (a, b) -> Arrays.compare(objectives[a], objectives[b]));
+        return order;
+    }
+}
@@ -0,0 +1,176 @@
+package GeneticAlgorithm;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lossless binary file of the segmentations of a pareto front, written and read through a memory mapped file.
+ * All values are big endian:
+ * <pre>
+ * int magic ("SEGF"), int version, int width, int height, int number of individuals
+ * per individual: int generation, int number of segments, double overall deviation, double connectivity,
+ *                 int number of runs, long position of the runs in the file
+ * per individual: runs of labels in row-major pixel order, each as int label, int length
+ * </pre>
+ * The header can be read without decoding any labels
+ */
+public class ParetoFrontFile {
+    private static final int MAGIC = 0x53454746;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 5 * Integer.BYTES;
+    private static final int ENTRY_SIZE = 3 * Integer.BYTES + 2 * Double.BYTES + Long.BYTES;
+
+    private final MappedByteBuffer buffer;
+    private final int width;
+    private final int height;
+    private final int numberOfIndividuals;
+
+    private ParetoFrontFile(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a pareto front file");
+        }
+        if (buffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException("Unsupported pareto front file version " + buffer.getInt(Integer.BYTES));
+        }
+
+        width = buffer.getInt(2 * Integer.BYTES);
+        height = buffer.getInt(3 * Integer.BYTES);
+        numberOfIndividuals = buffer.getInt(4 * Integer.BYTES);
+    }
+
+    /**
+     * Maps file, and reads its header
+     */
+    public static ParetoFrontFile read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new ParetoFrontFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes the labels of each individual run-length encoded, after a header with the objective functions of all of them
+     */
+    static void write(File file, int width, int height, List<Individual> individuals) throws IOException {
+        int[][] runs = new int[individuals.size()][];
+        long size = HEADER_SIZE + (long) ENTRY_SIZE * individuals.size();
+
+        for (int i = 0; i < individuals.size(); i++) {
+            runs[i] = encode(individuals.get(i).getLabels());
+            size += (long) Integer.BYTES * runs[i].length;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).putInt(individuals.size());
+
+            long position = HEADER_SIZE + (long) ENTRY_SIZE * individuals.size();
+            for (int i = 0; i < individuals.size(); i++) {
+                Individual individual = individuals.get(i);
+                buffer.putInt(individual.getGeneration())
+                        .putInt(individual.getSegments().size())
+                        .putDouble(individual.getOverallDeviation())
+                        .putDouble(individual.getConnectivity())
+                        .putInt(runs[i].length / 2)
+                        .putLong(position);
+                position += (long) Integer.BYTES * runs[i].length;
+            }
+
+            for (int[] individualRuns : runs) {
+                buffer.asIntBuffer().put(individualRuns);
+                buffer.position(buffer.position() + Integer.BYTES * individualRuns.length);
+            }
+
+            buffer.force();
+        }
+    }
+
+    /**
+     * @return label and length of each run of equal labels, in row-major pixel order
+     */
+    private static int[] encode(int[] labels) {
+        int numberOfRuns = 0;
+        for (int pixel = 0; pixel < labels.length; pixel++) {
+            if (pixel == 0 || labels[pixel] != labels[pixel - 1]) {
+                numberOfRuns++;
+            }
+        }
+
+        int[] runs = new int[2 * numberOfRuns];
+        int run = -1;
+        for (int pixel = 0; pixel < labels.length; pixel++) {
+            if (pixel == 0 || labels[pixel] != labels[pixel - 1]) {
+                run++;
+                runs[2 * run] = labels[pixel];
+            }
+            runs[2 * run + 1]++;
+        }
+
+        return runs;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getNumberOfIndividuals() {
+        return numberOfIndividuals;
+    }
+
+    public int getGeneration(int individual) {
+        return buffer.getInt(getEntry(individual));
+    }
+
+    public int getNumberOfSegments(int individual) {
+        return buffer.getInt(getEntry(individual) + Integer.BYTES);
+    }
+
+    public double getOverallDeviation(int individual) {
+        return buffer.getDouble(getEntry(individual) + 2 * Integer.BYTES);
+    }
+
+    public double getConnectivity(int individual) {
+        return buffer.getDouble(getEntry(individual) + 2 * Integer.BYTES + Double.BYTES);
+    }
+
+    /**
+     * Decodes the labels of an individual
+     *
+     * @return segment label of each pixel, indexed by y * width + x
+     */
+    public int[] getLabels(int individual) {
+        int entry = getEntry(individual);
+        int numberOfRuns = buffer.getInt(entry + 2 * Integer.BYTES + 2 * Double.BYTES);
+        int position = (int) buffer.getLong(entry + 3 * Integer.BYTES + 2 * Double.BYTES);
+        int[] labels = new int[width * height];
+        int pixel = 0;
+
+        for (int run = 0; run < numberOfRuns; run++, position += 2 * Integer.BYTES) {
+            int label = buffer.getInt(position);
+            int length = buffer.getInt(position + Integer.BYTES);
+            Arrays.fill(labels, pixel, pixel + length, label);
+            pixel += length;
+        }
+
+        return labels;
+    }
+
+    private int getEntry(int individual) {
+        if (individual < 0 || individual >= numberOfIndividuals) {
+            throw new IndexOutOfBoundsException("Individual " + individual + " of " + numberOfIndividuals);
+        }
+        return HEADER_SIZE + ENTRY_SIZE * individual;
+    }
+}
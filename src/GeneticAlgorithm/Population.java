@@ -3,35 +3,72 @@ package GeneticAlgorithm;
 import Utils.Utils;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 
 /**
  * Represents all individuals
  */
 class Population {
+    private ImageGraph imageGraph;
+    private int populationSize;
     private List<Individual> individuals;
     private List<Individual> paretoFront;
+    private NonDominatedFronts fronts; // Ranks of the individuals in multi objective GA
 
-    Population() throws InterruptedException {
+    // Steady-state evolution. Counters are guarded by the population lock
+    private final int numberOfOffspringWorkers = Runtime.getRuntime().availableProcessors(); // Offspring created at a time
+    private final Semaphore insertedOffspring = new Semaphore(0); // Permit per inserted (or failed) offspring
+    private volatile Throwable offspringFailure;
+    private int runningOffspringWorkers;
+    private long startedOffspring;
+    private long requestedOffspring; // populationSize per tick
+    private int offspringGeneration;
+
+    /**
+     * @param seeds seeds the work of each individual, so the population is the same for the same seed
+     */
+    Population(ImageGraph imageGraph, ExecutorService executorService, SplittableRandom seeds) throws InterruptedException {
+        this(imageGraph, executorService, seeds, GeneticAlgorithm.POPULATION_SIZE);
+    }
+
+    Population(ImageGraph imageGraph, ExecutorService executorService, SplittableRandom seeds, int populationSize) throws InterruptedException {
+        this.imageGraph = imageGraph;
+        this.populationSize = populationSize;
         individuals = new ArrayList<>();
-        generateInitialPopulation();
+        generateInitialPopulation(executorService, seeds);
     }
 
-    private void generateInitialPopulation() throws InterruptedException {
+    /**
+     * Restores the individuals of a checkpoint, which keep their checkpointed ranks and crowding distances
+     */
+    Population(ImageGraph imageGraph, List<Individual> individuals) {
+        this.imageGraph = imageGraph;
+        populationSize = individuals.size();
+        this.individuals = new ArrayList<>(individuals);
+
+        if (GeneticAlgorithm.MULTI_OBJECTIVE) {
+            fastNonDominatedSort();
+        }
+    }
+
+    private void generateInitialPopulation(ExecutorService executorService, SplittableRandom seeds) throws InterruptedException {
         System.out.println("Generating Initial Population");
         final long startTime = System.currentTimeMillis();
-        ExecutorService executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-        for (int i = 0; i < GeneticAlgorithm.POPULATION_SIZE; i++) {
-            executorService.execute(() -> {
-                Individual individual = new Individual(0);
-                individuals.add(individual);
+        List<Callable<Individual>> tasks = new ArrayList<>(populationSize);
+        for (int i = 0; i < populationSize; i++) {
+            long seed = seeds.nextLong();
+            tasks.add(() -> {
+                Utils.setSeed(seed);
+                return new Individual(imageGraph, 0);
             });
         }
 
-        executorService.shutdown();
-        executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        individuals.addAll(invokeAll(executorService, tasks));
 
         if (GeneticAlgorithm.MULTI_OBJECTIVE) {
             fastNonDominatedSort();
@@ -44,36 +81,29 @@ class Population {
 
     /**
      * NSGA-II
+     *
+     * @param seeds seeds the work of each offspring, independent of which thread creates it
      */
-    void tick(int generation) throws InterruptedException {
+    void tick(int generation, ExecutorService executorService, SplittableRandom seeds) throws InterruptedException {
+        if (GeneticAlgorithm.STEADY_STATE) {
+            tickSteadyState(generation, executorService, seeds);
+            return;
+        }
+
         final long startTime = System.currentTimeMillis();
-        List<Individual> offspringIndividuals = new ArrayList<>();
-        ExecutorService executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-
-        for (int i = 0; i < GeneticAlgorithm.POPULATION_SIZE; i++) {
-            executorService.execute(() -> {
-                // Selection
-                Individual[] parents = selection();
-
-                // Crossover
-                List<Segment> newSegments = crossover(parents[0], parents[1]);
-
-                // Mutation
-                double random = Utils.randomDouble();
-                if (random < GeneticAlgorithm.MUTATION_RATE) {
-//                    swapMutate(newSegments);
-                    splitCombineMutate(newSegments);
-                }
+        List<Callable<Individual>> tasks = new ArrayList<>(populationSize);
 
-                Individual offspring = new Individual(newSegments, generation);
-                offspringIndividuals.add(offspring);
+        for (int i = 0; i < populationSize; i++) {
+            long seed = seeds.nextLong();
+            tasks.add(() -> {
+                Utils.setSeed(seed);
+                return createOffspring(selection(), generation);
             });
         }
 
-        // Wait for offspring to finish construction
+        // Wait for offspring to finish construction. The population is only read while offspring are created
         final long startTime2 = System.currentTimeMillis();
-        executorService.shutdown();
-        executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        List<Individual> offspringIndividuals = invokeAll(executorService, tasks);
         System.out.println("Segments in " + offspringIndividuals.size() + " offspring individuals calculated in " + ((System.currentTimeMillis() - startTime2) / 1000) + "s");
 
         int averageSegmentsSize = 0;
@@ -86,81 +116,190 @@ class Population {
         System.out.println("Average segment size in offspring: " + averageSegmentsSize);
 
         // Add offspring to population
-        individuals.addAll(offspringIndividuals);
+        selectSurvivors(offspringIndividuals);
 
         if (GeneticAlgorithm.MULTI_OBJECTIVE) {
-            fastNonDominatedSort();
-            calculateCrowdingDistances();
+            System.out.println("Number of pareto optimal solutions: " + paretoFront.size());
+        }
+        System.out.println("New generation generated in " + ((System.currentTimeMillis() - startTime) / 1000) + "s");
+    }
 
-            individuals.sort(Comparator.comparingDouble(Individual::getRank).thenComparing(Individual::getCrowdingDistance, Collections.reverseOrder()));
-        } else {
-            individuals.sort(Comparator.comparingDouble(Individual::getFitness));
+    /**
+     * Asynchronous steady-state NSGA-II. A fixed number of offspring workers each select parents, create an offspring,
+     * insert it in place of the worst individual and submit themselves again, so no worker waits for slower offspring.
+     * Returns when populationSize offspring have been inserted since the last tick. Workers go on with the offspring they
+     * have started, and may start one more each, which are counted by the next tick.
+     * Not repeatable with a seed, as the parents depend on which offspring were inserted first
+     */
+    private void tickSteadyState(int generation, ExecutorService executorService, SplittableRandom seeds) throws InterruptedException {
+        final long startTime = System.currentTimeMillis();
+
+        synchronized (this) {
+            requestedOffspring += populationSize;
+            offspringGeneration = generation;
+
+            while (runningOffspringWorkers < numberOfOffspringWorkers) {
+                runningOffspringWorkers++;
+                executorService.execute(new OffspringWorker(executorService, seeds.split()));
+            }
         }
 
-        individuals = new ArrayList<>(individuals.subList(0, GeneticAlgorithm.POPULATION_SIZE));
+        insertedOffspring.acquire(populationSize);
+
+        Throwable failure = offspringFailure;
+        if (failure != null) {
+            offspringFailure = null;
+            throw new IllegalStateException("Individual could not be created", failure);
+        }
 
         if (GeneticAlgorithm.MULTI_OBJECTIVE) {
-            System.out.println("Number of pareto optimal solutions: " + paretoFront.size());
+            System.out.println("Number of pareto optimal solutions: " + getParetoFrontSize());
         }
-        System.out.println("New generation generated in " + ((System.currentTimeMillis() - startTime) / 1000) + "s");
+        System.out.println(populationSize + " offspring inserted in " + ((System.currentTimeMillis() - startTime) / 1000) + "s");
     }
 
     /**
-     * Ranking each individual based on how many other individuals dominates it
-     * Based on page 3 in NSGA-II paper by Kalyanmoy Deb, Amrit Pratap, Sameer Agarwal, and T. Meyarivan
+     * Creates offspring one at a time, resubmitting itself after each one, until the workers have started one offspring
+     * more each than the ticks so far have requested
      */
-    private void fastNonDominatedSort() {
-        List<Individual> front = new ArrayList<>(); // F
-        Map<Individual, Integer> dominatedCounts = new HashMap<>();
-        Map<Individual, List<Individual>> dominatedIndividuals = new HashMap<>();
-
-        int rank = 1;
-
-        for (Individual individual : individuals) { // p in P
-            dominatedIndividuals.put(individual, new ArrayList<>());
-            dominatedCounts.put(individual, 0);
-
-            for (Individual individualToCompare : individuals) { // q in P
-                if (individual != individualToCompare) {
-                    if (individual.dominates(individualToCompare)) { // Add to the set of solutions dominated (S)
-                        List<Individual> dominates = dominatedIndividuals.get(individual);
-                        dominates.add(individualToCompare);
-                    } else if (individualToCompare.dominates(individual)) {
-                        int dominatedCount = dominatedCounts.get(individual) + 1;
-                        dominatedCounts.put(individual, dominatedCount);
-                    }
+    private class OffspringWorker implements Runnable {
+        private final ExecutorService executorService;
+        private final SplittableRandom seeds; // Only used by this worker
+
+        OffspringWorker(ExecutorService executorService, SplittableRandom seeds) {
+            this.executorService = executorService;
+            this.seeds = seeds;
+        }
+
+        @Override
+        public void run() {
+            Individual[] parents;
+            int generation;
+
+            synchronized (Population.this) {
+                if (startedOffspring >= requestedOffspring + numberOfOffspringWorkers) {
+                    runningOffspringWorkers--;
+                    return;
                 }
+                startedOffspring++;
+                generation = offspringGeneration;
+                Utils.setSeed(seeds.nextLong());
+                parents = selection();
+            }
+
+            try {
+                insert(createOffspring(parents, generation));
+            } catch (RuntimeException | Error e) {
+                offspringFailure = e;
+            } finally {
+                insertedOffspring.release();
             }
 
-            if (dominatedCounts.get(individual) == 0) {
-                individual.setRank(rank);
-                front.add(individual);
+            try {
+                executorService.execute(this);
+            } catch (RejectedExecutionException e) {
+                // The pool is shut down
+                synchronized (Population.this) {
+                    runningOffspringWorkers--;
+                }
             }
         }
+    }
 
-        paretoFront = new ArrayList<>(front);
+    private Individual createOffspring(Individual[] parents, int generation) {
+        // Crossover
+        int[] labels = new int[imageGraph.size()];
+        List<Segment> newSegments = crossover(parents[0], parents[1], labels);
 
-        rank++;
-        while (front.size() != 0) {
-            List<Individual> newFront = new ArrayList<>(); // Q
-            for (Individual individual : front) { // p in F
-                for (Individual dominatedIndividual : dominatedIndividuals.get(individual)) { // q in S
-                    int dominatedCount = dominatedCounts.get(dominatedIndividual) - 1;
-                    dominatedCounts.put(dominatedIndividual, dominatedCount);
+        // Mutation
+        double random = Utils.randomDouble();
+        if (random < GeneticAlgorithm.MUTATION_RATE) {
+            splitCombineMutate(labels, newSegments);
+        }
 
-                    if (dominatedCount == 0) {
-                        dominatedIndividual.setRank(rank);
-                        newFront.add(dominatedIndividual);
-                    }
-                }
+        return new Individual(imageGraph, labels, newSegments, generation);
+    }
+
+    /**
+     * Adds one offspring, and removes the worst individual
+     */
+    private synchronized void insert(Individual offspring) {
+        selectSurvivors(Collections.singletonList(offspring));
+    }
+
+    private synchronized int getParetoFrontSize() {
+        return paretoFront.size();
+    }
+
+    /**
+     * Adds individuals from another population, which compete with the current individuals for survival
+     *
+     * @param immigrants individuals that are not ranked by any other population
+     */
+    synchronized void immigrate(List<Individual> immigrants) {
+        selectSurvivors(immigrants);
+    }
+
+    /**
+     * Adds newIndividuals, and keeps the populationSize best individuals by rank and crowding distance (fitness in
+     * weighted sum GA). A single offspring of steady-state GA is ranked incrementally, while many new individuals are
+     * ranked together with the population from scratch, as inserting each of them is O(N) at worst. Removed individuals
+     * are unranked starting with the worst, so removals do not move any individual up a front
+     */
+    private void selectSurvivors(List<Individual> newIndividuals) {
+        individuals.addAll(newIndividuals);
+
+        if (GeneticAlgorithm.MULTI_OBJECTIVE) {
+            if (newIndividuals.size() == 1) {
+                fronts.add(newIndividuals.get(0));
+                paretoFront = new ArrayList<>(fronts.getFront(1));
+            } else {
+                fastNonDominatedSort();
             }
+            calculateCrowdingDistances();
+
+            individuals.sort(Comparator.comparingDouble(Individual::getRank).thenComparing(Individual::getCrowdingDistance, Collections.reverseOrder()));
 
-            front = newFront;
-            rank++;
+            for (int i = individuals.size() - 1; i >= populationSize; i--) {
+                fronts.remove(individuals.get(i));
+            }
+        } else {
+            individuals.sort(Comparator.comparingDouble(Individual::getFitness));
         }
+
+        individuals = new ArrayList<>(individuals.subList(0, populationSize));
     }
 
-    private void calculateCrowdingDistances() {
+    /**
+     * Runs all tasks on executorService and waits for them to finish
+     *
+     * @return one individual per task, in task order
+     */
+    private List<Individual> invokeAll(ExecutorService executorService, List<Callable<Individual>> tasks) throws InterruptedException {
+        List<Individual> createdIndividuals = new ArrayList<>(tasks.size());
+
+        for (Future<Individual> future : executorService.invokeAll(tasks)) {
+            try {
+                createdIndividuals.add(future.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Individual could not be created", e.getCause());
+            }
+        }
+
+        return createdIndividuals;
+    }
+
+    /**
+     * Ranking each individual based on how many fronts of other individuals dominates it.
+     * With two objectives this is O(N log N) instead of the O(MN^2) fast non-dominated sort from the NSGA-II paper.
+     * A single offspring of steady-state GA updates the fronts incrementally
+     */
+    void fastNonDominatedSort() {
+        fronts = new NonDominatedFronts(individuals);
+        paretoFront = new ArrayList<>(fronts.getFront(1));
+    }
+
+    void calculateCrowdingDistances() {
         // Reset distances
         for (Individual individual : individuals) {
             individual.setCrowdingDistance(0);
@@ -262,43 +401,37 @@ class Population {
     }
 
     /**
-     * Create a single offspring from two parents by combining their segments
+     * Create a single offspring from two parents by combining their segments.
+     * Segments copied from the parents keep their cached objective functions
+     *
+     * @param labels label array of the offspring, filled with the segment label of each pixel
+     * @return segments of the offspring, indexed by label
      */
-    private List<Segment> crossover(Individual parent, Individual otherParent) {
+    List<Segment> crossover(Individual parent, Individual otherParent, int[] labels) {
         List<Segment> newSegments = new ArrayList<>();
 
-        // Initialize lists and map
-        Map<Integer, Segment> pixelSegmentMap = new HashMap<>();
-        boolean[] isAdded = new boolean[GeneticAlgorithm.pixels.size()];
+        // Initialize lists and labels (-1 = not assigned to offspring)
+        Arrays.fill(labels, -1);
         List<Segment> parentSegments = new ArrayList<>();
         parentSegments.addAll(parent.getSegments());
         parentSegments.addAll(otherParent.getSegments());
 
         // Shuffle list of all segments
-        Collections.shuffle(parentSegments);
+        Utils.shuffle(parentSegments);
 
         // Loop through every segment, and add segment if it does not contain any pixels that is already assigned to offspring
+        long[] assignedPixels = new long[(labels.length + 63) >>> 6];
         for (Segment segment : parentSegments) {
-            boolean addSegment = true;
-            for (Pixel pixel : segment.getSegmentPixels().values()) {
-                if (pixelSegmentMap.containsKey(pixel.getId()))
-                    addSegment = false;
-            }
-
-            if (addSegment) {
-                Segment newSegment = new Segment();
-                for (Pixel pixel : segment.getSegmentPixels().values()) {
-                    newSegment.addSegmentPixel(pixel);
-                    pixelSegmentMap.put(pixel.getId(), newSegment);
-                    isAdded[pixel.getId()] = true;
-                }
-
+            if (!segment.intersects(assignedPixels)) {
+                segment.addPixelBitsTo(assignedPixels);
+                Segment newSegment = segment.copy(newSegments.size());
+                newSegment.relabel(newSegment.getLabel(), labels);
                 newSegments.add(newSegment);
             }
         }
 
         // Find what pixels remain to be added
-        List<Pixel> remainingPixels = findRemainingPixels(isAdded);
+        int[] remainingPixels = findRemainingPixels(assignedPixels);
 
         // Decide how many segments offspring should have
         int numberOfSegments = Utils.randomInt(GeneticAlgorithm.MIN_SEGMENTS, GeneticAlgorithm.MAX_SEGMENTS);
@@ -309,133 +442,121 @@ class Population {
             remainingSegmentsToCreate = 1;
         }
 
-        if (remainingPixels.size() > 0) {
-            if (remainingSegmentsToCreate > remainingPixels.size()) {
+        if (remainingPixels.length > 0) {
+            if (remainingSegmentsToCreate > remainingPixels.length) {
                 // Create segments with MST
-                newSegments.addAll(multipleMST(remainingPixels.size(), remainingPixels, pixelSegmentMap));
+                newSegments.addAll(multipleMST(remainingPixels.length, remainingPixels, labels, newSegments.size()));
 
                 while (newSegments.size() < numberOfSegments) {
-                    List<Segment> segments = splitSegment(newSegments, pixelSegmentMap);
-                    newSegments.add(segments.get(0));
-                    newSegments.add(segments.get(1));
+                    splitSegment(labels, newSegments);
                 }
             } else {
                 // Create segments with MST
-                newSegments.addAll(multipleMST(remainingSegmentsToCreate, remainingPixels, pixelSegmentMap));
+                newSegments.addAll(multipleMST(remainingSegmentsToCreate, remainingPixels, labels, newSegments.size()));
 
                 // Fill in all remaining pixels
-                while (pixelSegmentMap.size() != GeneticAlgorithm.pixels.size()) {
-                    newSegments.add(multipleMST(1, remainingPixels, pixelSegmentMap).get(0));
+                while (hasUnassignedPixels(remainingPixels, labels)) {
+                    newSegments.addAll(multipleMST(1, remainingPixels, labels, newSegments.size()));
                 }
             }
         }
 
         // Combine segments if there are too many
-        while (newSegments.size() > numberOfSegments) {
-            combineSegments(newSegments, pixelSegmentMap);
+        if (newSegments.size() > numberOfSegments) {
+            RegionAdjacencyGraph regionAdjacencyGraph = new RegionAdjacencyGraph(imageGraph, labels, newSegments);
+
+            while (regionAdjacencyGraph.getNumberOfSegments() > numberOfSegments) {
+                combineSegments(regionAdjacencyGraph);
+            }
+            regionAdjacencyGraph.relabel();
         }
 
         return newSegments;
     }
 
     /**
-     * Return a list of the pixels that remains to be added to an offspring in the crossover method. This is done by
-     * adding the pixels which is at index i in isAdded if that element is false
+     * Return the ids of the pixels that remains to be added to an offspring in the crossover method
      *
-     * @param isAdded a list of length GeneticAlgorithm.pixels, if true pixel is already added to offspring
-     * @return list of pixels that remain to be added
+     * @param assignedPixels bitset of the pixels already added to the offspring
+     * @return ids of pixels that remain to be added
      */
-    private List<Pixel> findRemainingPixels(boolean[] isAdded) {
-        List<Pixel> remainingPixels = new ArrayList<>();
+    private int[] findRemainingPixels(long[] assignedPixels) {
+        int[] remainingPixels = new int[imageGraph.size()];
+        int numberOfRemainingPixels = 0;
+
+        for (int word = 0; word < assignedPixels.length; word++) {
+            long unassigned = ~assignedPixels[word];
+
+            while (unassigned != 0) {
+                int pixel = (word << 6) + Long.numberOfTrailingZeros(unassigned);
+                if (pixel >= remainingPixels.length) {
+                    break;
+                }
+                remainingPixels[numberOfRemainingPixels++] = pixel;
+                unassigned &= unassigned - 1;
+            }
+        }
+        return Arrays.copyOf(remainingPixels, numberOfRemainingPixels);
+    }
 
-        for (int i = 0; i < isAdded.length; i++) {
-            if (!isAdded[i]) {
-                remainingPixels.add(GeneticAlgorithm.pixels.get(i));
+    private boolean hasUnassignedPixels(int[] pixelIds, int[] labels) {
+        for (int pixelId : pixelIds) {
+            if (labels[pixelId] == -1) {
+                return true;
             }
         }
-        return remainingPixels;
+        return false;
     }
 
     /**
-     * Collapse two neighboring segments by finding the two neighboring segments with lowest color distance
+     * Collapse two neighboring segments, either the two with lowest color distance or the smallest segment into its neighbor.
+     * The merged segment is combined from the cached values of the two segments
      *
-     * @param segments        list of segments to check
-     * @param pixelSegmentMap mapping of what segment a pixel belongs to
+     * @param regionAdjacencyGraph graph of the segments to combine, updated with the merge
      */
-    private void combineSegments(List<Segment> segments, Map<Integer, Segment> pixelSegmentMap) {
-        // Update centroid for every segment
-        for (Segment segment : segments) {
-            segment.calculateAverageColor();
-        }
-
-        Segment segment1 = null, segment2 = null;
+    private void combineSegments(RegionAdjacencyGraph regionAdjacencyGraph) {
         int random = Utils.randomInt(0, 1);
 
-        double minDistance = Integer.MAX_VALUE, minSize = Integer.MAX_VALUE;
-
-        // Find what segments to combine
-        for (Segment segment : segments) {
-            List<Segment> neighboringSegments = getNeighborSegments(segment, pixelSegmentMap);
-
-            for (Segment segmentNeighbor : neighboringSegments) {
-                if (random == 1) {
-                    double colorDistance = Utils.getEuclideanColorDistance(segment.getAverageColor(), segmentNeighbor.getAverageColor());
-
-                    if (colorDistance < minDistance) {
-                        segment1 = segment;
-                        segment2 = segmentNeighbor;
-                        minDistance = colorDistance;
-                    }
-                } else {
-                    int segmentSize = segmentNeighbor.getSegmentPixels().size();
-                    if (segmentSize < minSize) {
-                        segment1 = segment;
-                        segment2 = segmentNeighbor;
-                        minSize = segmentSize;
-                    }
-                }
-            }
-        }
-
-        if (segment1 == null) {
-            System.out.println("hello");
-        }
-
-        Objects.requireNonNull(segment1).addSegmentPixels(segment2.getSegmentPixels().values());
-        segments.remove(segment2);
-
-        for (Pixel pixel : segment2.getSegmentPixels().values()) {
-            pixelSegmentMap.put(pixel.getId(), segment1);
+        if (random == 1) {
+            regionAdjacencyGraph.mergeMostSimilar();
+        } else {
+            regionAdjacencyGraph.mergeSmallest();
         }
     }
 
     /**
-     * Split a segment by finding the segment with largest color difference
+     * Split a segment by finding the segment with largest color difference.
+     * Only the two new segments need to be evaluated
      *
-     * @param segments        segments to check
-     * @param pixelSegmentMap map of what segment a pixel belongs to
-     * @return Two new segments
+     * @param labels   label array to split a segment in
+     * @param segments segments indexed by label
      */
-    private List<Segment> splitSegment(List<Segment> segments, Map<Integer, Segment> pixelSegmentMap) {
-        Segment segmentToSplit = findSegmentToSplit(segments);
+    private void splitSegment(int[] labels, List<Segment> segments) {
+        Segment segmentToSplit = findSegmentToSplit(labels, segments);
+        int[] pixelIds = segmentToSplit.getSegmentPixels();
 
-        pixelSegmentMap.values().removeAll(Collections.singleton(segmentToSplit));
-        segments.remove(segmentToSplit);
+        for (int pixelId : pixelIds) {
+            labels[pixelId] = -1;
+        }
 
-        List<Pixel> pixels = new ArrayList<>(segmentToSplit.getSegmentPixels().values());
-        return new ArrayList<>(multipleMST(2, pixels, pixelSegmentMap));
+        // Grow two new trees, and give the last of them the label of the segment that was split
+        List<Segment> newSegments = multipleMST(2, pixelIds, labels, segments.size());
+        Segment lastSegment = newSegments.get(1);
+        lastSegment.relabel(segmentToSplit.getLabel(), labels);
+        segments.set(segmentToSplit.getLabel(), lastSegment);
+        segments.add(newSegments.get(0));
     }
 
     /**
      * Finds segment with highest overall deviations
      */
-    private Segment findSegmentToSplit(List<Segment> segments) {
+    private Segment findSegmentToSplit(int[] labels, List<Segment> segments) {
         double maxOverallDeviation = Double.MIN_VALUE;
 
         Segment segmentToSplit = null;
 
         for (Segment segment : segments) {
-            segment.calculateObjectiveFunctions();
+            segment.calculateObjectiveFunctions(labels);
             double overallDeviation = segment.getOverallDeviation();
 
             if (overallDeviation > maxOverallDeviation) {
@@ -447,75 +568,21 @@ class Population {
         return segmentToSplit;
     }
 
-    /**
-     * Find all neighboring segments of a specific segment
-     *
-     * @param segment             segment to locate its neighbors
-     * @param pixelSegmentHashMap mapping of what segment a pixel belongs to
-     * @return all neighboring segments of Segment segment
-     */
-    private List<Segment> getNeighborSegments(Segment segment, Map<Integer, Segment> pixelSegmentHashMap) {
-        ArrayList<Segment> neighborSegments = new ArrayList<>();
-
-        List<Pixel> pixels = new ArrayList<>(segment.getSegmentPixels().values());
-        for (Pixel pixel : pixels) {
-            List<Edge> edges = pixel.getEdges();
-            for (Edge edge : edges) {
-                Segment neighborSegment = pixelSegmentHashMap.get(edge.getNeighbor().getId());
-                if (neighborSegment != null && segment != neighborSegment && !neighborSegments.contains(neighborSegment)) {
-                    neighborSegments.add(neighborSegment);
-                }
-            }
-        }
-
-        return neighborSegments;
-    }
-
     /**
      * Build multiple MSTs (Minimum spanning tree) from the pixels in list pixels.
+     * The trees grow into every pixel of pixelIds reachable from their roots
      *
-     * @param numberOfTrees   Number of trees to be made
-     * @param pixels          The list of pixels to build MSTs around
-     * @param pixelSegmentMap Map of what segment a pixel belongs to already
+     * @param numberOfTrees Number of trees to be made
+     * @param pixelIds      Ids of the pixels to grow the trees in, only the unassigned (-1) ones are used
+     * @param labels        Label array with what segment a pixel belongs to already
+     * @param firstLabel    Label of the first tree, the following trees get consecutive labels
      * @return multiple new segments aka MSTs with regard to color distance
      */
-    private List<Segment> multipleMST(int numberOfTrees, List<Pixel> pixels, Map<Integer, Segment> pixelSegmentMap) {
-        Queue<Edge> availableNeighbors = new PriorityQueue<>();
-        List<Segment> newSegments = new ArrayList<>();
-        for (int i = 0; i < numberOfTrees; i++) {
-            Pixel pixel;
-            do {
-                pixel = pixels.get(Utils.randomIndex(pixels.size()));
-            } while (pixelSegmentMap.containsKey(pixel.getId()));
-
-            Segment segment = new Segment();
-            segment.addSegmentPixel(pixel);
-            pixelSegmentMap.put(pixel.getId(), segment);
-            newSegments.add(segment);
-            availableNeighbors.addAll(pixel.getEdges());
-        }
-
-        while (!availableNeighbors.isEmpty()) {
-            Edge bestCandidate = availableNeighbors.remove();
-            Pixel p = bestCandidate.getPixel();
-            Pixel n = bestCandidate.getNeighbor();
-            Segment s = pixelSegmentMap.get(p.getId());
-
-            if (!pixelSegmentMap.containsKey(n.getId())) {
-                availableNeighbors.addAll(n.getEdges());
-                pixelSegmentMap.put(n.getId(), s);
-                s.addSegmentPixel(n);
-            }
-        }
-
-        return newSegments;
-    }
+    private List<Segment> multipleMST(int numberOfTrees, int[] pixelIds, int[] labels, int firstLabel) {
+        int[] treePixels = new int[pixelIds.length];
+        int numberOfTreePixels = RegionGrowing.growMinimumSpanningTrees(imageGraph, labels, pixelIds, numberOfTrees, firstLabel, treePixels);
 
-    private void swapMutate(List<Integer> chromosome) {
-        int indexA = Utils.randomIndex(chromosome.size());
-        int randomNeighborIndex = Utils.randomIndex(GeneticAlgorithm.pixels.get(indexA).getEdges().size());
-        int indexB = GeneticAlgorithm.pixels.get(indexA).getEdges().get(randomNeighborIndex).getNeighbor().getId();
-        Collections.swap(chromosome, indexA, indexB);
+        return Segment.generateSegments(imageGraph, labels, treePixels, numberOfTreePixels, firstLabel, numberOfTrees);
     }
 
     /**
@@ -523,35 +590,26 @@ class Population {
      * There is a 50/50 chance if it is going to split or combine.
      * When combining, this method will locate the two most similar segments, and combining them.
      * When splitting, this method will locate the segment with highest color diversity and splitting it
-     * @param segments Segments of the individual to mutate
+     * @param labels   Label array of the individual to mutate
+     * @param segments Segments of the individual to mutate, indexed by label
      */
-    private void splitCombineMutate(List<Segment> segments) {
+    void splitCombineMutate(int[] labels, List<Segment> segments) {
         // Choose which operation to use
         int operation = Utils.randomInt(0, 1);
 
-        // Map what segment each pixel belongs to
-        Map<Integer, Segment> pixelSegmentMap = new HashMap<>();
-        for (Segment s : segments) {
-            for (Pixel p : s.getSegmentPixels().values()) {
-                pixelSegmentMap.put(p.getId(), s);
-            }
-        }
-
         // Split operation
         if (operation == 1 && segments.size() < GeneticAlgorithm.MAX_SEGMENTS || segments.size() == GeneticAlgorithm.MIN_SEGMENTS) {
-            List<Segment> splitSegment = splitSegment(segments, pixelSegmentMap);
-            segments.add(splitSegment.get(0));
-            segments.add(splitSegment.get(1));
+            splitSegment(labels, segments);
         }
         // Combine operation
         else {
-            combineSegments(segments, pixelSegmentMap);
+            RegionAdjacencyGraph regionAdjacencyGraph = new RegionAdjacencyGraph(imageGraph, labels, segments);
+            combineSegments(regionAdjacencyGraph);
+            regionAdjacencyGraph.relabel();
         }
-
-        // Påse at offspring har alle pixler
     }
 
-    List<Segment> getRandomParetoSegments() {
+    synchronized Individual getRandomParetoIndividual() {
         int randomIndex;
         Individual individual;
 
@@ -565,12 +623,13 @@ class Population {
             individual = individuals.get(0);
         }
 
-        individual.calculateConvexHulls();
-
-        return individual.getSegments();
+        return individual;
     }
 
-    List<Individual> getIndividuals() {
-        return individuals;
+    /**
+     * @return the current individuals. Offspring of a steady-state tick can change the population after the tick
+     */
+    synchronized List<Individual> getIndividuals() {
+        return new ArrayList<>(individuals);
     }
 }
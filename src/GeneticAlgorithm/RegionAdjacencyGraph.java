@@ -0,0 +1,221 @@
+package GeneticAlgorithm;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Region adjacency graph of the segments of an offspring, built with one pass over the pixels and updated on every merge.
+ * Each pair of neighboring segments is weighted by the connectivity of the pixel edges between them, so merging
+ * does not have to visit the boundary again. Candidate merges are kept in priority queues, where entries made stale
+ * by a merge are skipped when they reach the head of the queue.
+ * Merged labels are joined in a disjoint set, so a merge does not touch any pixels. The label array and the segment list
+ * are updated once by relabel, after all merges
+ */
+class RegionAdjacencyGraph {
+    private final int[] labels;
+    private final List<Segment> segments; // Indexed by label, written by relabel
+    private final Segment[] nodes; // Current segment of each label that is a root
+    private final int[][] originalPixels; // Pixels of each label before any merge
+    private final int[] roots; // Disjoint set of labels, the root of a set holds the merged segment
+    private final List<Map<Integer, Double>> neighbors; // Shared connectivity with each neighbor, indexed by label
+    private final int[] versions; // Increased whenever the segment with a label changes
+    private int numberOfSegments;
+
+    private final PriorityQueue<Candidate> colorDistanceQueue = new PriorityQueue<>();
+    private final PriorityQueue<Candidate> sizeQueue = new PriorityQueue<>();
+
+    /**
+     * @param labels   label array where every pixel is assigned
+     * @param segments segments indexed by label. Merges are applied to labels and segments by relabel
+     */
+    RegionAdjacencyGraph(ImageGraph imageGraph, int[] labels, List<Segment> segments) {
+        this.labels = labels;
+        this.segments = segments;
+        numberOfSegments = segments.size();
+        nodes = segments.toArray(new Segment[0]);
+        originalPixels = new int[numberOfSegments][];
+        roots = new int[numberOfSegments];
+        versions = new int[numberOfSegments];
+        neighbors = new ArrayList<>(numberOfSegments);
+
+        for (int label = 0; label < numberOfSegments; label++) {
+            originalPixels[label] = nodes[label].getSegmentPixels();
+            roots[label] = label;
+            neighbors.add(new HashMap<>());
+        }
+
+        // Each pixel edge once, from the pixel with the lowest id
+        for (int pixel = 0; pixel < labels.length; pixel++) {
+            for (int direction = 0; direction < ImageGraph.NUMBER_OF_DIRECTIONS; direction++) {
+                int neighbor = imageGraph.getNeighbor(pixel, direction);
+
+                if (neighbor > pixel && labels[neighbor] != labels[pixel]) {
+                    double connectivity = (double) 1 / imageGraph.getDegree(pixel) + (double) 1 / imageGraph.getDegree(neighbor);
+                    neighbors.get(labels[pixel]).merge(labels[neighbor], connectivity, Double::sum);
+                    neighbors.get(labels[neighbor]).merge(labels[pixel], connectivity, Double::sum);
+                }
+            }
+        }
+
+        for (int label = 0; label < numberOfSegments; label++) {
+            addCandidates(label);
+        }
+    }
+
+    /**
+     * Merges the two neighboring segments with the lowest color distance between their average colors
+     */
+    void mergeMostSimilar() {
+        Candidate candidate = pollValid(colorDistanceQueue);
+        merge(candidate.label1, candidate.label2);
+    }
+
+    /**
+     * Merges the smallest segment into the neighbor it shares the longest boundary with
+     */
+    void mergeSmallest() {
+        int label2 = pollValid(sizeQueue).label1;
+        int label1 = -1;
+        double maxSharedConnectivity = -1;
+
+        for (Map.Entry<Integer, Double> neighbor : neighbors.get(label2).entrySet()) {
+            if (neighbor.getValue() > maxSharedConnectivity) {
+                label1 = neighbor.getKey();
+                maxSharedConnectivity = neighbor.getValue();
+            }
+        }
+
+        merge(label1, label2);
+    }
+
+    /**
+     * Merges segment2 into segment1, by making label1 the root of label2
+     */
+    private void merge(int label1, int label2) {
+        nodes[label1] = Segment.merge(nodes[label1], nodes[label2], neighbors.get(label1).get(label2));
+        nodes[label2] = null;
+        roots[label2] = label1;
+        numberOfSegments--;
+
+        Map<Integer, Double> neighbors1 = neighbors.get(label1);
+        neighbors1.remove(label2);
+        for (Map.Entry<Integer, Double> neighbor : neighbors.get(label2).entrySet()) {
+            int label = neighbor.getKey();
+            if (label != label1) {
+                neighbors.get(label).remove(label2);
+                neighbors.get(label).merge(label1, neighbor.getValue(), Double::sum);
+                neighbors1.merge(label, neighbor.getValue(), Double::sum);
+            }
+        }
+        neighbors.get(label2).clear();
+        versions[label1]++;
+        versions[label2]++;
+
+        addCandidates(label1);
+    }
+
+    /**
+     * Gives the remaining segments consecutive labels in the segment list, and writes the labels of merged segments
+     * to the label array. Merged segments get the pixels of every label in their set
+     */
+    void relabel() {
+        int[] mergedPixels = new int[nodes.length]; // Number of pixels added to each merged segment
+        int[][] pixels = new int[nodes.length][];
+
+        for (int label = 0; label < nodes.length; label++) {
+            int root = find(label);
+
+            if (nodes[root].getSegmentPixels() == null) {
+                if (pixels[root] == null) {
+                    pixels[root] = new int[nodes[root].size()];
+                }
+                System.arraycopy(originalPixels[label], 0, pixels[root], mergedPixels[root], originalPixels[label].length);
+                mergedPixels[root] += originalPixels[label].length;
+            }
+        }
+
+        segments.clear();
+        for (int label = 0; label < nodes.length; label++) {
+            Segment segment = nodes[label];
+
+            if (segment != null) {
+                if (pixels[label] != null) {
+                    segment.setSegmentPixels(pixels[label]);
+                }
+                if (pixels[label] != null || segment.getLabel() != segments.size()) {
+                    segment.relabel(segments.size(), labels);
+                }
+                segments.add(segment);
+            }
+        }
+    }
+
+    private int find(int label) {
+        while (roots[label] != label) {
+            roots[label] = roots[roots[label]];
+            label = roots[label];
+        }
+        return label;
+    }
+
+    int getNumberOfSegments() {
+        return numberOfSegments;
+    }
+
+    /**
+     * Adds the segment to the size queue, and its pairs with every neighbor to the color distance queue
+     */
+    private void addCandidates(int label) {
+        Map<Integer, Double> labelNeighbors = neighbors.get(label);
+        if (labelNeighbors.isEmpty()) {
+            return;
+        }
+
+        Segment segment = nodes[label];
+        sizeQueue.add(new Candidate(segment.size(), label, -1));
+
+        for (int neighbor : labelNeighbors.keySet()) {
+            double colorDistance = segment.getColorDistance(nodes[neighbor]);
+            colorDistanceQueue.add(new Candidate(colorDistance, label, neighbor));
+        }
+    }
+
+    private Candidate pollValid(PriorityQueue<Candidate> queue) {
+        while (!queue.isEmpty()) {
+            Candidate candidate = queue.poll();
+            if (candidate.isValid()) {
+                return candidate;
+            }
+        }
+
+        throw new IllegalStateException("No neighboring segments to combine");
+    }
+
+    private class Candidate implements Comparable<Candidate> {
+        private final double priority;
+        private final int label1;
+        private final int label2; // -1 for candidates of a single segment
+        private final int version1;
+        private final int version2;
+
+        Candidate(double priority, int label1, int label2) {
+            this.priority = priority;
+            this.label1 = label1;
+            this.label2 = label2;
+            version1 = versions[label1];
+            version2 = label2 == -1 ? 0 : versions[label2];
+        }
+
+        boolean isValid() {
+            return version1 == versions[label1] && (label2 == -1 || version2 == versions[label2]);
+        }
+
+        @Override
+        public int compareTo(Candidate otherCandidate) {
+            return Double.compare(priority, otherCandidate.priority);
+        }
+    }
+}
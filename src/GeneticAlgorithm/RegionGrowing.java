@@ -0,0 +1,88 @@
+package GeneticAlgorithm;
+
+import Utils.Utils;
+
+import java.util.Arrays;
+
+/**
+ * Grows segments as minimum spanning trees (Prim) from several random roots at the same time.
+ * Used both for initial individuals and for splitting segments
+ */
+class RegionGrowing {
+
+    private RegionGrowing() {
+    }
+
+    /**
+     * Every free pixel reachable from a root is labeled with the label of the tree that reaches it first
+     *
+     * @param labels        label array. Grown pixels get the label firstLabel + tree
+     * @param freePixels    ids of the pixels the trees may grow into if they are unassigned (-1), or null for the whole image
+     * @param numberOfTrees number of random roots
+     * @param grownPixels   receives the ids of the labeled pixels (including the roots) if not null
+     * @return number of labeled pixels
+     */
+    static int growMinimumSpanningTrees(ImageGraph imageGraph, int[] labels, int[] freePixels, int numberOfTrees,
+                                        int firstLabel, int[] grownPixels) {
+        long[] visited = new long[(imageGraph.size() + 63) >>> 6]; // Bitset of pixels that are labeled or not free
+        if (freePixels != null) {
+            Arrays.fill(visited, -1L);
+            for (int pixel : freePixels) {
+                if (labels[pixel] == -1) {
+                    visited[pixel >>> 6] &= ~(1L << pixel);
+                }
+            }
+        }
+
+        BucketQueue availableEdges = new BucketQueue();
+        int numberOfGrownPixels = 0;
+
+        for (int tree = 0; tree < numberOfTrees; tree++) {
+            int root;
+            do {
+                root = freePixels == null ? Utils.randomIndex(imageGraph.size()) : freePixels[Utils.randomIndex(freePixels.length)];
+            } while ((visited[root >>> 6] & (1L << root)) != 0);
+
+            visited[root >>> 6] |= 1L << root;
+            labels[root] = firstLabel + tree;
+            numberOfGrownPixels = addGrownPixel(grownPixels, numberOfGrownPixels, root);
+            addEdges(imageGraph, availableEdges, visited, root);
+        }
+
+        while (!availableEdges.isEmpty()) {
+            int edge = availableEdges.remove();
+            int neighbor = imageGraph.getEdgeNeighbor(edge);
+
+            // Several edges can lead to the same pixel, only the first (cheapest) one is used
+            if ((visited[neighbor >>> 6] & (1L << neighbor)) == 0) {
+                visited[neighbor >>> 6] |= 1L << neighbor;
+                labels[neighbor] = labels[edge / ImageGraph.NUMBER_OF_DIRECTIONS];
+                numberOfGrownPixels = addGrownPixel(grownPixels, numberOfGrownPixels, neighbor);
+                addEdges(imageGraph, availableEdges, visited, neighbor);
+            }
+        }
+
+        return numberOfGrownPixels;
+    }
+
+    /**
+     * Adds the edges from pixel to pixels that are not yet visited
+     */
+    private static void addEdges(ImageGraph imageGraph, BucketQueue availableEdges, long[] visited, int pixel) {
+        for (int direction = 0; direction < ImageGraph.NUMBER_OF_DIRECTIONS; direction++) {
+            int neighbor = imageGraph.getNeighbor(pixel, direction);
+
+            if (neighbor != -1 && (visited[neighbor >>> 6] & (1L << neighbor)) == 0) {
+                int edge = pixel * ImageGraph.NUMBER_OF_DIRECTIONS + direction;
+                availableEdges.add(imageGraph.getQuantizedEdgeWeight(edge), edge);
+            }
+        }
+    }
+
+    private static int addGrownPixel(int[] grownPixels, int numberOfGrownPixels, int pixel) {
+        if (grownPixels != null) {
+            grownPixels[numberOfGrownPixels] = pixel;
+        }
+        return numberOfGrownPixels + 1;
+    }
+}
@@ -0,0 +1,47 @@
+package GeneticAlgorithm;
+
+/**
+ * Color distances one pixel at a time
+ */
+class ScalarColorDistanceKernel implements ColorDistanceKernel {
+
+    @Override
+    public double sumOfDistances(float[] colors, int numberOfPixels, int[] pixelIds, float[] color) {
+        double sum = 0.0;
+
+        for (int pixelId : pixelIds) {
+            sum += distance(colors, numberOfPixels, pixelId, color);
+        }
+
+        return sum;
+    }
+
+    @Override
+    public void distances(float[] colors, int numberOfPixels, int from, int offset, int length, float[] distances) {
+        for (int i = 0; i < length; i++) {
+            distances[i] = (float) distance(colors, numberOfPixels, from + i, from + i + offset);
+        }
+    }
+
+    /**
+     * Squared channel differences are summed in float, in the same order as the vector kernel
+     */
+    static double distance(float[] colors, int numberOfPixels, int pixel, float[] color) {
+        float distance0 = colors[pixel] - color[0];
+        float distance1 = colors[numberOfPixels + pixel] - color[1];
+        float distance2 = colors[2 * numberOfPixels + pixel] - color[2];
+        return Math.sqrt(distance0 * distance0 + distance1 * distance1 + distance2 * distance2);
+    }
+
+    static double distance(float[] colors, int numberOfPixels, int pixel, int otherPixel) {
+        float distance0 = colors[pixel] - colors[otherPixel];
+        float distance1 = colors[numberOfPixels + pixel] - colors[numberOfPixels + otherPixel];
+        float distance2 = colors[2 * numberOfPixels + pixel] - colors[2 * numberOfPixels + otherPixel];
+        return Math.sqrt(distance0 * distance0 + distance1 * distance1 + distance2 * distance2);
+    }
+
+    @Override
+    public String toString() {
+        return "scalar";
+    }
+}
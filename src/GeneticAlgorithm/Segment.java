@@ -1,44 +1,324 @@
 package GeneticAlgorithm;
 
-import Utils.Utils;
-
-import java.awt.Color;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
- * Represents a set of Pixels
+ * Represents a set of Pixels.
+ * Lightweight view of one label in a label array, holding only the ids of its pixels.
+ * Color sums and objective functions only depend on what pixels the segment contains, so they are cached and carried
+ * over when a segment is copied into an offspring, or combined incrementally when two segments are merged.
+ * Color sums are summed once when a segment is created, and added when segments are merged. Average color and objective
+ * functions are calculated lazily. Every segment of an individual is evaluated before the individual is shared between threads
  */
 class Segment {
-    private Map<Integer, Pixel> segmentPixels;
-    private Color averageColor;
+    private ImageGraph imageGraph;
+    private int label;
+    private int[] segmentPixels; // Ids of the pixels with this label. Shared between copies, never modified
+    private int size;
+    private long[] pixelBits; // Bitset of segmentPixels, word i is word firstPixelWord + i of a bitset over the image
+    private int firstPixelWord;
+
+    // Cached sums
+    private long sumRed;
+    private long sumGreen;
+    private long sumBlue;
+    private long sumSquaredRed;
+    private long sumSquaredGreen;
+    private long sumSquaredBlue;
+    private double[] colorSums; // Sum of each channel in GeneticAlgorithm.COLOR_SPACE
+    private double[] squaredColorSums;
+    private int averageColor; // Packed RGB value
+    private float[] centroid; // μ in GeneticAlgorithm.COLOR_SPACE
+    private boolean averageColorCalculated;
+
+    // Cached objective functions
+    private boolean evaluated;
+    private boolean connectivityEvaluated; // Connectivity of a merged segment is known before its overall deviation
     private double overallDeviation;
     private double connectivity;
-    private List<Pixel> boundaryPixels;
 
-    Segment() {
-        segmentPixels = new HashMap<>();
+    private int[] boundaryPixels;
+
+    /**
+     * @param segmentPixels ids of the pixels in the segment, kept by the segment and not modified
+     */
+    Segment(ImageGraph imageGraph, int label, int[] segmentPixels) {
+        this.imageGraph = imageGraph;
+        this.label = label;
+        colorSums = new double[ColorSpace.NUMBER_OF_CHANNELS];
+        squaredColorSums = new double[ColorSpace.NUMBER_OF_CHANNELS];
+        setNewSegmentPixels(segmentPixels);
     }
 
     /**
-     * Calculates overallDeviation and connectivity
+     * Restores an evaluated segment from a checkpoint, with the cached values that depend on the order the segment was
+     * built in, so it is evaluated and combined exactly as the checkpointed segment. The pixels are not summed again
+     *
+     * @param segmentPixels ids of the pixels in the same order as in the checkpointed segment
+     * @param rgbSums       sums of red, green and blue, followed by the sums of their squares, as from getRGBSums
      */
-    void calculateObjectiveFunctions() {
-        overallDeviation = 0.0;
-        calculateAverageColor();
+    Segment(ImageGraph imageGraph, int label, int[] segmentPixels, long[] rgbSums, double[] colorSums, double[] squaredColorSums,
+            double overallDeviation, double connectivity) {
+        this.imageGraph = imageGraph;
+        this.label = label;
+        this.segmentPixels = segmentPixels;
+        size = segmentPixels.length;
+        setPixelBits(segmentPixels);
+        sumRed = rgbSums[0];
+        sumGreen = rgbSums[1];
+        sumBlue = rgbSums[2];
+        sumSquaredRed = rgbSums[3];
+        sumSquaredGreen = rgbSums[4];
+        sumSquaredBlue = rgbSums[5];
+        this.colorSums = colorSums;
+        this.squaredColorSums = squaredColorSums;
+        this.overallDeviation = overallDeviation;
+        this.connectivity = connectivity;
+        evaluated = true;
+        connectivityEvaluated = true;
+        calculateAverageColor(); // Evaluated segments are shared between threads, so the lazy calculation must not run later
+    }
 
-        connectivity = 0.0;
+    private Segment(int label, Segment segment) {
+        imageGraph = segment.imageGraph;
+        this.label = label;
+        segmentPixels = segment.segmentPixels;
+        size = segment.size;
+        pixelBits = segment.pixelBits;
+        firstPixelWord = segment.firstPixelWord;
+        sumRed = segment.sumRed;
+        sumGreen = segment.sumGreen;
+        sumBlue = segment.sumBlue;
+        sumSquaredRed = segment.sumSquaredRed;
+        sumSquaredGreen = segment.sumSquaredGreen;
+        sumSquaredBlue = segment.sumSquaredBlue;
+        colorSums = segment.colorSums.clone();
+        squaredColorSums = segment.squaredColorSums.clone();
+        averageColor = segment.averageColor;
+        centroid = segment.centroid;
+        averageColorCalculated = segment.averageColorCalculated;
+        evaluated = segment.evaluated;
+        connectivityEvaluated = segment.connectivityEvaluated;
+        overallDeviation = segment.overallDeviation;
+        connectivity = segment.connectivity;
+    }
 
-        for (Pixel segmentPixel : segmentPixels.values()) {
-            for (Edge edge : segmentPixel.getEdges()) {
-                Pixel neighbor = edge.getNeighbor();
+    /**
+     * Groups the pixel ids of a label array into one segment per label (counting sort)
+     *
+     * @param labels           segment label of each pixel, in [0, numberOfSegments>
+     * @param numberOfSegments number of distinct labels
+     * @return segments indexed by label
+     */
+    static List<Segment> generateSegments(ImageGraph imageGraph, int[] labels, int numberOfSegments) {
+        int[] pixelIds = new int[labels.length];
+        for (int i = 0; i < pixelIds.length; i++) {
+            pixelIds[i] = i;
+        }
 
-                if (!segmentPixels.containsKey(neighbor.getId())) {
-                    connectivity += (double) 1 / segmentPixel.getEdges().size();
-                }
+        return generateSegments(imageGraph, labels, pixelIds, pixelIds.length, 0, numberOfSegments);
+    }
+
+    /**
+     * Groups a subset of pixel ids into one segment per label (counting sort)
+     *
+     * @param labels           segment label of each pixel
+     * @param pixelIds         ids of the pixels to group, all labeled in [firstLabel, firstLabel + numberOfSegments>
+     * @param numberOfPixels   number of ids to use from pixelIds
+     * @param firstLabel       label of the first segment
+     * @param numberOfSegments number of distinct labels
+     * @return segments in label order
+     */
+    static List<Segment> generateSegments(ImageGraph imageGraph, int[] labels, int[] pixelIds, int numberOfPixels, int firstLabel,
+                                          int numberOfSegments) {
+        int[] sizes = new int[numberOfSegments];
+        for (int i = 0; i < numberOfPixels; i++) {
+            sizes[labels[pixelIds[i]] - firstLabel]++;
+        }
+
+        int[][] segmentPixels = new int[numberOfSegments][];
+        for (int i = 0; i < numberOfSegments; i++) {
+            segmentPixels[i] = new int[sizes[i]];
+            sizes[i] = 0;
+        }
+
+        for (int i = 0; i < numberOfPixels; i++) {
+            int segment = labels[pixelIds[i]] - firstLabel;
+            segmentPixels[segment][sizes[segment]++] = pixelIds[i];
+        }
+
+        List<Segment> segments = new ArrayList<>(numberOfSegments);
+        for (int i = 0; i < numberOfSegments; i++) {
+            segments.add(new Segment(imageGraph, firstLabel + i, segmentPixels[i]));
+        }
+
+        return segments;
+    }
+
+    /**
+     * Merges two segments, reusing their cached sums and connectivity.
+     * Connectivity of the merged segment is the connectivity of both segments minus the edges between them.
+     * The pixels of the merged segment are left unset, so a chain of merges only combines sums, and overall deviation
+     * is calculated once the pixels are set
+     *
+     * @param sharedConnectivity connectivity of the edges between the segments, in both directions
+     * @return merged segment with the label of segment, and no pixels
+     */
+    static Segment merge(Segment segment, Segment otherSegment, double sharedConnectivity) {
+        Segment merged = new Segment(segment.label, segment);
+        merged.segmentPixels = null;
+        merged.pixelBits = null;
+        merged.size += otherSegment.size;
+        merged.sumRed += otherSegment.sumRed;
+        merged.sumGreen += otherSegment.sumGreen;
+        merged.sumBlue += otherSegment.sumBlue;
+        merged.sumSquaredRed += otherSegment.sumSquaredRed;
+        merged.sumSquaredGreen += otherSegment.sumSquaredGreen;
+        merged.sumSquaredBlue += otherSegment.sumSquaredBlue;
+        for (int channel = 0; channel < ColorSpace.NUMBER_OF_CHANNELS; channel++) {
+            merged.colorSums[channel] += otherSegment.colorSums[channel];
+            merged.squaredColorSums[channel] += otherSegment.squaredColorSums[channel];
+        }
+        merged.averageColorCalculated = false;
+
+        merged.evaluated = false;
+        if (segment.connectivityEvaluated && otherSegment.connectivityEvaluated) {
+            merged.connectivity = segment.connectivity + otherSegment.connectivity - sharedConnectivity;
+        } else {
+            merged.connectivityEvaluated = false;
+        }
+
+        return merged;
+    }
+
+    /**
+     * @return copy of the segment with a new label, sharing pixels and cached values
+     */
+    Segment copy(int label) {
+        return new Segment(label, this);
+    }
+
+    /**
+     * Gives the segment a new label, and writes it to the label array
+     */
+    void relabel(int label, int[] labels) {
+        this.label = label;
+        for (int pixelId : segmentPixels) {
+            labels[pixelId] = label;
+        }
+    }
+
+    /**
+     * Sets the pixels of a new segment, and sums their colors once.
+     * The average color and objective functions are calculated when they are first needed
+     *
+     * @param pixelIds ids of the pixels in the segment, kept by the segment and not modified
+     */
+    private void setNewSegmentPixels(int[] pixelIds) {
+        segmentPixels = pixelIds;
+        size = pixelIds.length;
+        addColorSums(pixelIds);
+        setPixelBits(pixelIds);
+    }
+
+    /**
+     * The bitset covers only the words between the lowest and highest pixel id, as segments are mostly compact
+     */
+    private void setPixelBits(int[] pixelIds) {
+        int firstWord = Integer.MAX_VALUE;
+        int lastWord = Integer.MIN_VALUE;
+
+        for (int pixelId : pixelIds) {
+            firstWord = Math.min(firstWord, pixelId >>> 6);
+            lastWord = Math.max(lastWord, pixelId >>> 6);
+        }
+
+        long[] bits = new long[Math.max(0, lastWord - firstWord + 1)];
+        for (int pixelId : pixelIds) {
+            bits[(pixelId >>> 6) - firstWord] |= 1L << pixelId;
+        }
+
+        pixelBits = bits;
+        firstPixelWord = pixelIds.length == 0 ? 0 : firstWord;
+    }
+
+    /**
+     * @param imagePixelBits bitset over the pixels of the image
+     * @return true if any pixel of the segment is set in imagePixelBits
+     */
+    boolean intersects(long[] imagePixelBits) {
+        for (int i = 0; i < pixelBits.length; i++) {
+            if ((pixelBits[i] & imagePixelBits[firstPixelWord + i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sets the pixels of the segment in imagePixelBits
+     */
+    void addPixelBitsTo(long[] imagePixelBits) {
+        for (int i = 0; i < pixelBits.length; i++) {
+            imagePixelBits[firstPixelWord + i] |= pixelBits[i];
+        }
+    }
+
+    private void addColorSums(int[] pixelIds) {
+        for (int pixelId : pixelIds) {
+            int rgb = imageGraph.getRGB(pixelId);
+            int red = (rgb >> 16) & 0xFF;
+            int green = (rgb >> 8) & 0xFF;
+            int blue = rgb & 0xFF;
+
+            sumRed += red;
+            sumGreen += green;
+            sumBlue += blue;
+            sumSquaredRed += red * red;
+            sumSquaredGreen += green * green;
+            sumSquaredBlue += blue * blue;
+
+            for (int channel = 0; channel < ColorSpace.NUMBER_OF_CHANNELS; channel++) {
+                double color = imageGraph.getColor(pixelId, channel);
+                colorSums[channel] += color;
+                squaredColorSums[channel] += color * color;
             }
+        }
+    }
+
+    /**
+     * Calculates overallDeviation and connectivity, unless they are already cached
+     *
+     * @param labels label array the segment is a view of
+     */
+    void calculateObjectiveFunctions(int[] labels) {
+        if (evaluated) {
+            return;
+        }
+
+        if (!connectivityEvaluated) {
+            connectivity = 0.0;
 
-            overallDeviation += Utils.getEuclideanColorDistance(segmentPixel.getColor(), averageColor); // dist(i, μ)
+            for (int pixelId : segmentPixels) {
+                for (int direction = 0; direction < ImageGraph.NUMBER_OF_DIRECTIONS; direction++) {
+                    int neighbor = imageGraph.getNeighbor(pixelId, direction);
+
+                    if (neighbor != -1 && labels[neighbor] != label) {
+                        connectivity += (double) 1 / imageGraph.getDegree(pixelId);
+                    }
+                }
+            }
+            connectivityEvaluated = true;
         }
+
+        calculateOverallDeviation();
+        evaluated = true;
+    }
+
+    private void calculateOverallDeviation() {
+        overallDeviation = imageGraph.getTotalColorDistance(segmentPixels, getCentroid()); // Sum of dist(i, μ)
     }
 
     /**
@@ -46,57 +326,76 @@ class Segment {
      * Used in overall deviation (μ)
      * Also calculates the average color in segment used in drawing on canvas
      */
-    void calculateAverageColor() {
-        int averageRed = 0;
-        int averageGreen = 0;
-        int averageBlue = 0;
-
-        for (Pixel segmentPixel : segmentPixels.values()) {
-            if (GeneticAlgorithm.AVERAGE_COLOR) {
-                averageRed += Math.pow(segmentPixel.getColor().getRed(), 2);
-                averageGreen += Math.pow(segmentPixel.getColor().getGreen(), 2);
-                averageBlue += Math.pow(segmentPixel.getColor().getBlue(), 2);
-            } else {
-                averageRed += segmentPixel.getColor().getRed();
-                averageGreen += segmentPixel.getColor().getGreen();
-                averageBlue += segmentPixel.getColor().getBlue();
-            }
-        }
+    private void calculateAverageColor() {
+        int averageRed;
+        int averageGreen;
+        int averageBlue;
 
         if (GeneticAlgorithm.AVERAGE_COLOR) {
-            averageRed = (int) Math.sqrt((double) averageRed / segmentPixels.size());
-            averageGreen = (int) Math.sqrt((double) averageGreen / segmentPixels.size());
-            averageBlue = (int) Math.sqrt((double) averageBlue / segmentPixels.size());
+            averageRed = (int) Math.sqrt((double) sumSquaredRed / size);
+            averageGreen = (int) Math.sqrt((double) sumSquaredGreen / size);
+            averageBlue = (int) Math.sqrt((double) sumSquaredBlue / size);
         } else {
-            averageRed = averageRed / segmentPixels.size();
-            averageGreen = averageGreen / segmentPixels.size();
-            averageBlue = averageBlue / segmentPixels.size();
+            averageRed = (int) (sumRed / size);
+            averageGreen = (int) (sumGreen / size);
+            averageBlue = (int) (sumBlue / size);
+        }
+        averageColor = (averageRed << 16) | (averageGreen << 8) | averageBlue;
+
+        float[] centroid = new float[ColorSpace.NUMBER_OF_CHANNELS]; // New array, as the old one may be shared with copies
+        for (int channel = 0; channel < ColorSpace.NUMBER_OF_CHANNELS; channel++) {
+            centroid[channel] = GeneticAlgorithm.COLOR_SPACE.centroid(colorSums[channel], squaredColorSums[channel], size);
         }
-        averageColor = new Color(averageRed, averageGreen, averageBlue);
+        this.centroid = centroid;
+        averageColorCalculated = true;
     }
 
-    void calculateConvexHull() {
-        boundaryPixels = new ArrayList<>();
+    /**
+     * @param labels label array the segment is a view of
+     */
+    void calculateConvexHull(int[] labels) {
+        int[] hull = new int[segmentPixels.length];
+        int hullSize = 0;
 
-        for (Pixel segmentPixel : segmentPixels.values()) {
-            for (Edge edge : segmentPixel.getEdges()) {
-                if ((edge.getDirection() == Direction.EAST || edge.getDirection() == Direction.SOUTH) &&
-                        !segmentPixels.containsKey(edge.getNeighbor().getId())) {
-                    boundaryPixels.add(segmentPixel);
-                    break;
-                }
+        for (int pixelId : segmentPixels) {
+            int eastNeighbor = imageGraph.getNeighbor(pixelId, Direction.EAST.ordinal());
+            int southNeighbor = imageGraph.getNeighbor(pixelId, Direction.SOUTH.ordinal());
+
+            if ((eastNeighbor != -1 && labels[eastNeighbor] != label) || (southNeighbor != -1 && labels[southNeighbor] != label)) {
+                hull[hullSize++] = pixelId;
             }
         }
+
+        boundaryPixels = Arrays.copyOf(hull, hullSize);
     }
 
-    void addSegmentPixel(Pixel pixel) {
-        segmentPixels.put(pixel.getId(), pixel);
+    int getLabel() {
+        return label;
     }
 
-    void addSegmentPixels(Collection<Pixel> pixels) {
-        for (Pixel pixel : pixels) {
-            addSegmentPixel(pixel);
-        }
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return sums of red, green and blue, followed by the sums of their squares
+     */
+    long[] getRGBSums() {
+        return new long[]{sumRed, sumGreen, sumBlue, sumSquaredRed, sumSquaredGreen, sumSquaredBlue};
+    }
+
+    /**
+     * @return sum of each channel in GeneticAlgorithm.COLOR_SPACE, not to be modified
+     */
+    double[] getColorSums() {
+        return colorSums;
+    }
+
+    /**
+     * @return sum of the square of each channel in GeneticAlgorithm.COLOR_SPACE, not to be modified
+     */
+    double[] getSquaredColorSums() {
+        return squaredColorSums;
     }
 
     double getOverallDeviation() {
@@ -107,15 +406,49 @@ class Segment {
         return connectivity;
     }
 
-    List<Pixel> getBoundaryPixels() {
+    int[] getBoundaryPixels() {
         return boundaryPixels;
     }
 
-    Color getAverageColor() {
+    int getAverageColor() {
+        if (!averageColorCalculated) {
+            calculateAverageColor();
+        }
         return averageColor;
     }
 
-    Map<Integer, Pixel> getSegmentPixels() {
+    float[] getCentroid() {
+        if (!averageColorCalculated) {
+            calculateAverageColor();
+        }
+        return centroid;
+    }
+
+    /**
+     * @return distance between the centroids of the segments in GeneticAlgorithm.COLOR_SPACE
+     */
+    double getColorDistance(Segment otherSegment) {
+        float[] centroid = getCentroid();
+        float[] otherCentroid = otherSegment.getCentroid();
+        double sum = 0.0;
+
+        for (int channel = 0; channel < ColorSpace.NUMBER_OF_CHANNELS; channel++) {
+            double distance = centroid[channel] - otherCentroid[channel];
+            sum += distance * distance;
+        }
+
+        return Math.sqrt(sum);
+    }
+
+    int[] getSegmentPixels() {
         return segmentPixels;
     }
+
+    /**
+     * Sets the pixels of a merged segment, without changing their labels
+     */
+    void setSegmentPixels(int[] segmentPixels) {
+        this.segmentPixels = segmentPixels;
+        setPixelBits(segmentPixels);
+    }
 }
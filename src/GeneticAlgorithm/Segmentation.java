@@ -0,0 +1,106 @@
+package GeneticAlgorithm;
+
+import java.util.List;
+
+/**
+ * Read-only view of the segmentation of one individual, used to draw or save a solution without depending on
+ * the internal representation of the genetic algorithm
+ */
+public class Segmentation {
+    private final int width;
+    private final int height;
+    private final int[] labels; // Segment label of each pixel, indexed by y * width + x
+    private final int[] averageColors; // Packed RGB average color of each segment, indexed by label
+    private final double overallDeviation;
+    private final double connectivity;
+    private final int generation;
+
+    Segmentation(ImageGraph imageGraph, Individual individual) {
+        width = imageGraph.getWidth();
+        height = imageGraph.getHeight();
+        labels = individual.getLabels();
+        overallDeviation = individual.getOverallDeviation();
+        connectivity = individual.getConnectivity();
+        generation = individual.getGeneration();
+
+        List<Segment> segments = individual.getSegments();
+        averageColors = new int[segments.size()];
+        for (int label = 0; label < averageColors.length; label++) {
+            averageColors[label] = segments.get(label).getAverageColor();
+        }
+    }
+
+    /**
+     * A pixel is on the boundary of its segment if the pixel to the east or south belongs to another segment
+     */
+    public boolean isBoundary(int x, int y) {
+        int label = getLabel(x, y);
+        return (x + 1 < width && getLabel(x + 1, y) != label) || (y + 1 < height && getLabel(x, y + 1) != label);
+    }
+
+    /**
+     * Writes the average color of the segment of each pixel, as opaque ARGB
+     *
+     * @param argb pixels indexed by y * width + x
+     */
+    public void drawAverageColors(int[] argb) {
+        for (int pixel = 0; pixel < labels.length; pixel++) {
+            argb[pixel] = 0xFF000000 | averageColors[labels[pixel]];
+        }
+    }
+
+    /**
+     * Writes color to every boundary pixel (see isBoundary), and leaves the other pixels unchanged
+     *
+     * @param argb pixels indexed by y * width + x
+     */
+    public void drawBoundaries(int[] argb, int color) {
+        for (int y = 0; y < height; y++) {
+            int rowStart = y * width;
+            int rowEnd = rowStart + width - 1;
+
+            for (int pixel = rowStart; pixel <= rowEnd; pixel++) {
+                int label = labels[pixel];
+
+                if ((pixel < rowEnd && labels[pixel + 1] != label) || (y + 1 < height && labels[pixel + width] != label)) {
+                    argb[pixel] = color;
+                }
+            }
+        }
+    }
+
+    public int getLabel(int x, int y) {
+        return labels[y * width + x];
+    }
+
+    /**
+     * @return packed RGB value (0xRRGGBB)
+     */
+    public int getAverageColor(int label) {
+        return averageColors[label];
+    }
+
+    public int getNumberOfSegments() {
+        return averageColors.length;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public double getOverallDeviation() {
+        return overallDeviation;
+    }
+
+    public double getConnectivity() {
+        return connectivity;
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+}
@@ -0,0 +1,121 @@
+package Main;
+
+import GeneticAlgorithm.GeneticAlgorithm;
+import Utils.ImageUtils;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs one genetic algorithm per image, several images at a time.
+ * Each image is driven by its own thread, while the individuals of all images are created on one shared,
+ * bounded work-stealing pool
+ */
+public class BatchScheduler {
+    private final ForkJoinPool workerPool; // Shared by all genetic algorithms
+    private final ExecutorService imagePool; // One thread per image being segmented
+
+    /**
+     * @param parallelImages number of images segmented at the same time, at least 1
+     * @param workerThreads  number of threads creating individuals, shared by all images
+     */
+    public BatchScheduler(int parallelImages, int workerThreads) {
+        if (parallelImages < 1) {
+            throw new IllegalArgumentException("At least one image must be segmented at a time, not " + parallelImages);
+        }
+
+        workerPool = new ForkJoinPool(workerThreads);
+        imagePool = Executors.newFixedThreadPool(parallelImages);
+    }
+
+    /**
+     * Segments all images, and saves the pareto optimal solutions of each image to outputDirectory.
+     * An image is done when it has run the given number of generations, or when the time limit is reached
+     *
+     * @param timeLimit           time limit per image in milliseconds
+     * @param seed                seed of every genetic algorithm, or null for a random seed per image
+     * @param checkpointDirectory directory of one checkpoint per image, which is resumed if it exists, or null for no checkpoints
+     * @return number of images that failed
+     */
+    public int run(List<File> images, int generations, long timeLimit, Long seed, File outputDirectory,
+                   File checkpointDirectory) throws InterruptedException {
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        AtomicInteger finishedImages = new AtomicInteger();
+
+        for (File image : images) {
+            tasks.add(() -> {
+                try {
+                    runImage(image, generations, timeLimit, seed, outputDirectory, checkpointDirectory);
+                    return true;
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("[" + image.getName() + "] failed: " + e);
+                    e.printStackTrace();
+                    return false;
+                } finally {
+                    System.out.println("Images done: " + finishedImages.incrementAndGet() + "/" + images.size());
+                }
+            });
+        }
+
+        int failedImages = 0;
+        for (Future<Boolean> result : imagePool.invokeAll(tasks)) {
+            try {
+                if (!result.get()) {
+                    failedImages++;
+                }
+            } catch (ExecutionException e) {
+                failedImages++;
+            }
+        }
+
+        return failedImages;
+    }
+
+    private void runImage(File image, int generations, long timeLimit, Long seed, File outputDirectory,
+                          File checkpointDirectory) throws IOException, InterruptedException {
+        ImageUtils imageUtils = new ImageUtils();
+        BufferedImage bufferedImage = image.isFile() ? imageUtils.readImage(image) : imageUtils.readImage(image.getName());
+
+        final long startTime = System.currentTimeMillis();
+        GeneticAlgorithm ga = new GeneticAlgorithm(imageUtils.parseBufferedImageToRGB(bufferedImage), bufferedImage.getWidth(), workerPool);
+        if (seed != null) {
+            ga.setSeed(seed);
+        }
+        if (checkpointDirectory != null) {
+            File checkpointFile = new File(checkpointDirectory, image.getName() + ".checkpoint");
+            if (checkpointFile.isFile()) {
+                ga.resume(checkpointFile);
+            }
+            ga.setCheckpointFile(checkpointFile);
+        }
+
+        // Generation 0 creates the initial population. Islands evolve no further than the last generation
+        do {
+            ga.tick((int) Math.min(Integer.MAX_VALUE, (long) generations + 1 - ga.getGeneration()));
+            System.out.println("[" + image.getName() + "] Generation " + ga.getGeneration() + " done after " + ((System.currentTimeMillis() - startTime) / 1000) + "s");
+        } while (ga.getGeneration() <= generations && System.currentTimeMillis() - startTime < timeLimit);
+
+        String fileName = image.getName();
+        String fileNameNoExtension = fileName.contains(".") ? fileName.substring(0, fileName.lastIndexOf('.')) : fileName;
+        Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+        ga.saveParetoOptimalIndividualsToFile(outputDirectory, fileNameNoExtension, timestamp);
+        ga.saveParetoFrontToFile(outputDirectory, fileNameNoExtension, timestamp);
+        ga.shutdown();
+    }
+
+    public void shutdown() {
+        imagePool.shutdownNow();
+        workerPool.shutdownNow();
+    }
+}
@@ -0,0 +1,80 @@
+package Main;
+
+import GeneticAlgorithm.GeneticAlgorithm;
+import GeneticAlgorithm.GenerationSnapshot;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Ticks a genetic algorithm on a background thread, so the JavaFX application thread only renders.
+ * After each tick the worker publishes a snapshot, which replaces any snapshot the UI has not taken yet.
+ * The UI therefore only renders the latest generation, and never slows down the genetic algorithm
+ */
+class GeneticAlgorithmWorker {
+    private final GeneticAlgorithm ga;
+    private final ExecutorService executorService; // One thread, so ticks and saves never run at the same time
+    private final AtomicReference<GenerationSnapshot> latestSnapshot = new AtomicReference<>();
+    private volatile boolean running = false;
+
+    GeneticAlgorithmWorker(GeneticAlgorithm ga) {
+        this.ga = ga;
+        executorService = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "genetic-algorithm-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Ticks until paused
+     */
+    void start() {
+        running = true;
+        executorService.execute(this::run);
+    }
+
+    /**
+     * Stops ticking after the current tick
+     */
+    void pause() {
+        running = false;
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                ga.tick();
+                latestSnapshot.set(ga.getSnapshot());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            running = false;
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return snapshot published since the last call, or null if there is none
+     */
+    GenerationSnapshot takeSnapshot() {
+        return latestSnapshot.getAndSet(null);
+    }
+
+    /**
+     * Runs task on the worker thread after the current tick, when the genetic algorithm is not changing
+     */
+    void submit(Runnable task) {
+        executorService.execute(task);
+    }
+
+    /**
+     * Interrupts the current tick. The worker can not be started again
+     */
+    void shutdown() {
+        running = false;
+        executorService.shutdownNow();
+    }
+}
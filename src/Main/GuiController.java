@@ -1,6 +1,8 @@
 package Main;
 
+import GeneticAlgorithm.GenerationSnapshot;
 import GeneticAlgorithm.GeneticAlgorithm;
+import GeneticAlgorithm.Segmentation;
 import Utils.ImageUtils;
 
 import javafx.animation.AnimationTimer;
@@ -15,12 +17,12 @@ import javafx.scene.chart.XYChart;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
+import javafx.scene.image.PixelFormat;
 import javafx.scene.image.WritableImage;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 
-import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
@@ -80,12 +82,20 @@ public class GuiController {
 
     private WritableImage image;
 
+    // ARGB buffers of the canvases, indexed by y * imageWidth + x
+    private int[] imagePixels; // The image, which boundaries are drawn on in canvas2
+    private int[] averageColorPixels;
+    private int[] imageBoundaryPixels;
+    private int[] boundaryPixels;
+
     // States
     private boolean paused = true;
     private boolean initialized = false;
 
     private String fileName;
     private GeneticAlgorithm ga;
+    private GeneticAlgorithmWorker worker; // Ticks ga in the background
+    private GenerationSnapshot snapshot; // Latest rendered generation
 
     @FXML
     private void initialize() {
@@ -101,15 +111,24 @@ public class GuiController {
             image = SwingFXUtils.toFXImage(bufferedImage, null);
             imageWidth = bufferedImage.getWidth();
             imageHeight = bufferedImage.getHeight();
+            int[] rgb = imageUtils.parseBufferedImageToRGB(bufferedImage);
+            imagePixels = new int[rgb.length];
+            for (int pixel = 0; pixel < rgb.length; pixel++) {
+                imagePixels[pixel] = 0xFF000000 | rgb[pixel];
+            }
+            averageColorPixels = new int[imagePixels.length];
+            imageBoundaryPixels = new int[imagePixels.length];
+            boundaryPixels = new int[imagePixels.length];
             initializeGUI();
-            Color[][] colorArr = imageUtils.parseBufferedImageTo2DArray(bufferedImage);
             gc = canvas.getGraphicsContext2D();
             gc2 = canvas2.getGraphicsContext2D();
             gc3 = canvas3.getGraphicsContext2D();
             resetCanvases();
             renderImage();
             System.out.println("Image read and rendered in " + ((System.currentTimeMillis() - startTime)) + "ms");
-            ga = new GeneticAlgorithm(colorArr);
+            ga = new GeneticAlgorithm(rgb, imageWidth);
+            worker = new GeneticAlgorithmWorker(ga);
+            snapshot = null;
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -120,8 +139,13 @@ public class GuiController {
         new AnimationTimer() {
             public void handle(long currentNanoTime) {
                 if (!paused) {
-                    tick();
-                    render(startNanoTime, currentNanoTime);
+                    // Only the latest generation is rendered, and frames without a new generation only update the time
+                    GenerationSnapshot latestSnapshot = worker.takeSnapshot();
+                    if (latestSnapshot != null) {
+                        snapshot = latestSnapshot;
+                        renderSegmentation(snapshot.getSegmentation()); // Renders a optimal solution of Population in Genetic Algorithm
+                    }
+                    updateGUI(startNanoTime, currentNanoTime);
                 }
             }
         }.start();
@@ -184,30 +208,39 @@ public class GuiController {
         gc2.drawImage(image, 0, 0);
     }
 
-    private void tick() {
-        try {
-            ga.tick();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
-
-    }
-
     private void resetCanvases() {
         gc.clearRect(0, 0, imageWidth, imageHeight); // Clear canvas
         gc2.clearRect(0, 0, imageWidth, imageHeight); // Clear canvas
         gc3.clearRect(0, 0, imageWidth, imageHeight); // Clear canvas
     }
 
-    private void render(long startNanoTime, long currentNanoTime) {
-        resetCanvases();
-        gc2.drawImage(image, 0, 0);
-        ga.render(gc, gc2, gc3); // Renders a optimal solution of Population in Genetic Algorithm
-        updateGUI(startNanoTime, currentNanoTime);
+    /**
+     * Draws segments in their average color on canvas, and segment boundaries on canvas2 and canvas3.
+     * Each canvas is written with one setPixels call from an ARGB buffer
+     */
+    private void renderSegmentation(Segmentation segmentation) {
+        final long startTime = System.currentTimeMillis();
+
+        segmentation.drawAverageColors(averageColorPixels);
+        setPixels(gc, averageColorPixels);
+
+        System.arraycopy(imagePixels, 0, imageBoundaryPixels, 0, imagePixels.length);
+        segmentation.drawBoundaries(imageBoundaryPixels, 0xFF00FF00);
+        setPixels(gc2, imageBoundaryPixels);
+
+        Arrays.fill(boundaryPixels, 0); // Transparent
+        segmentation.drawBoundaries(boundaryPixels, 0xFF000000);
+        setPixels(gc3, boundaryPixels);
+
+        System.out.println("Pareto optimal solution rendered in " + ((System.currentTimeMillis() - startTime)) + "ms");
+    }
+
+    private void setPixels(GraphicsContext graphicsContext, int[] argb) {
+        graphicsContext.getPixelWriter().setPixels(0, 0, imageWidth, imageHeight, PixelFormat.getIntArgbInstance(), argb, 0, imageWidth);
     }
 
     private void addToScartChart() {
-        double[][] populationData = ga.getPopulationData();
+        double[][] populationData = snapshot.getPopulationData();
 
         final int RANK = 0;
         final int OVERALL_DEVIATION = 1;
@@ -227,7 +260,9 @@ public class GuiController {
 
     private void updateGUI(long startNanoTime, long currentNanoTime) {
         double time = (currentNanoTime - startNanoTime) / 1000000000.0;
-        generationLabel.setText("Generation: " + ga.getGeneration());
+        if (snapshot != null) {
+            generationLabel.setText("Generation: " + snapshot.getGeneration());
+        }
         timeLabel.setText("Time: " + (int) time);
     }
 
@@ -239,8 +274,12 @@ public class GuiController {
             startButton.setText("Start");
             saveButton.setVisible(true);
             imageSelector.setVisible(true);
-            addToScartChart();
+            worker.pause();
+            if (snapshot != null) {
+                addToScartChart();
+            }
         } else {
+            worker.start();
             startButton.setText("Pause");
             saveButton.setVisible(false);
             imageSelector.setVisible(false);
@@ -256,21 +295,29 @@ public class GuiController {
     @FXML
     public void reset() {
         paused = true;
+        if (ga != null) {
+            worker.shutdown();
+            ga.shutdown();
+        }
         ga = null;
         initialize();
     }
 
     @FXML
     private void save() {
-        final long startTime = System.currentTimeMillis();
         Timestamp timestamp = new Timestamp(System.currentTimeMillis());
         String fileNameNoExtension = fileName.substring(0, fileName.lastIndexOf('.'));
 
-        try {
-            ga.saveParetoOptimalIndividualsToFile(fileNameNoExtension, timestamp);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
-        System.out.println("Pareto optimal solutions saved in " + ((System.currentTimeMillis() - startTime) / 1000) + "s");
+        // Saved on the worker thread after the last tick, so the UI does not wait for either
+        worker.submit(() -> {
+            final long startTime = System.currentTimeMillis();
+            try {
+                ga.saveParetoOptimalIndividualsToFile(fileNameNoExtension, timestamp);
+                ga.saveParetoFrontToFile(new File("."), fileNameNoExtension, timestamp);
+            } catch (InterruptedException | IOException e) {
+                e.printStackTrace();
+            }
+            System.out.println("Pareto optimal solutions saved in " + ((System.currentTimeMillis() - startTime) / 1000) + "s");
+        });
     }
 }
@@ -0,0 +1,106 @@
+package Main;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Runs the genetic algorithm without JavaFX, and saves the pareto optimal solutions to disk.
+ * Usage: HeadlessRunner image|directory [--generations n] [--time seconds] [--output directory] [--parallel-images n] [--seed n] [--checkpoint directory]
+ * The image is read from the given path, or from the bundled images if there is no such file.
+ * Every image in a directory is segmented, several at a time. Runs with the same seed give the same solutions.
+ * With a checkpoint directory, the state of each image is saved periodically, and an interrupted run continues from it
+ */
+public class HeadlessRunner {
+    private static final String USAGE = "Usage: HeadlessRunner image|directory [--generations n] [--time seconds] [--output directory] [--parallel-images n] [--seed n] [--checkpoint directory]";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        String imagePath = args[0];
+        int generations = Integer.MAX_VALUE;
+        long timeLimit = Long.MAX_VALUE; // Milliseconds per image
+        File outputDirectory = new File(".");
+        int parallelImages = 2;
+        Long seed = null; // Random seed when not given
+        File checkpointDirectory = null; // No checkpoints when not given
+
+        for (int i = 1; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i] + "\n" + USAGE);
+            }
+
+            switch (args[i]) {
+                case "--generations":
+                    generations = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--time":
+                    timeLimit = Long.parseLong(args[i + 1]) * 1000;
+                    break;
+                case "--output":
+                    outputDirectory = new File(args[i + 1]);
+                    break;
+                case "--parallel-images":
+                    parallelImages = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[i + 1]);
+                    break;
+                case "--checkpoint":
+                    checkpointDirectory = new File(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i] + "\n" + USAGE);
+            }
+        }
+
+        if (generations == Integer.MAX_VALUE && timeLimit == Long.MAX_VALUE) {
+            throw new IllegalArgumentException("Either --generations or --time must be given\n" + USAGE);
+        }
+
+        if (parallelImages < 1) {
+            throw new IllegalArgumentException("--parallel-images must be at least 1\n" + USAGE);
+        }
+
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            throw new IOException("Could not create output directory " + outputDirectory);
+        }
+
+        if (checkpointDirectory != null && !checkpointDirectory.isDirectory() && !checkpointDirectory.mkdirs()) {
+            throw new IOException("Could not create checkpoint directory " + checkpointDirectory);
+        }
+
+        List<File> images = new ArrayList<>();
+        File imageFile = new File(imagePath);
+
+        if (imageFile.isDirectory()) {
+            File[] imageFiles = Objects.requireNonNull(imageFile.listFiles(File::isFile));
+            Arrays.sort(imageFiles);
+            images.addAll(Arrays.asList(imageFiles));
+        } else {
+            images.add(imageFile);
+        }
+
+        if (images.isEmpty()) {
+            System.out.println("No images in " + imageFile.getAbsolutePath());
+            return;
+        }
+
+        BatchScheduler batchScheduler = new BatchScheduler(Math.min(parallelImages, images.size()), Runtime.getRuntime().availableProcessors());
+        int failedImages = batchScheduler.run(images, generations, timeLimit, seed, outputDirectory, checkpointDirectory);
+        batchScheduler.shutdown();
+
+        System.out.println("Pareto optimal solutions saved to " + outputDirectory.getAbsolutePath());
+
+        if (failedImages > 0) {
+            System.err.println(failedImages + " of " + images.size() + " images failed");
+            System.exit(1);
+        }
+    }
+}
@@ -1,10 +1,17 @@
 package Utils;
 
 import javax.imageio.ImageIO;
-import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Objects;
 
 public class ImageUtils {
@@ -13,19 +20,106 @@ public class ImageUtils {
     }
 
     public BufferedImage readImage(String fileName) throws IOException {
-        ClassLoader classLoader = getClass().getClassLoader();
-        return ImageIO.read(new File(Objects.requireNonNull(classLoader.getResource("resources/images/" + fileName)).getFile()));
+        try (InputStream stream = getClass().getClassLoader().getResourceAsStream("resources/images/" + fileName)) {
+            return readImage(Objects.requireNonNull(stream, "No bundled image " + fileName));
+        }
+    }
+
+    /**
+     * Reads an image from any path, instead of from the bundled images
+     */
+    public BufferedImage readImage(File file) throws IOException {
+        BufferedImage bufferedImage = ImageIO.read(file);
+
+        if (bufferedImage == null) {
+            throw new IOException("Unsupported image format: " + file);
+        }
+
+        return bufferedImage;
     }
 
-    public Color[][] parseBufferedImageTo2DArray(BufferedImage bufferedImage) {
-        Color[][] colorArr = new Color[bufferedImage.getHeight()][bufferedImage.getWidth()];
+    /**
+     * Reads an image from stream, which is not closed
+     */
+    public BufferedImage readImage(InputStream stream) throws IOException {
+        BufferedImage bufferedImage = ImageIO.read(stream);
 
-        for (int y = 0; y < bufferedImage.getHeight(); y++) {
-            for (int x = 0; x < bufferedImage.getWidth(); x++) {
-                colorArr[y][x] = new Color(bufferedImage.getRGB(x, y));
-            }
+        if (bufferedImage == null) {
+            throw new IOException("Unsupported image format");
         }
 
-        return colorArr;
+        return bufferedImage;
+    }
+
+    /**
+     * Copies the pixels straight from the data buffer of the raster for the image types ImageIO decodes to
+     * (packed int RGB and interleaved byte BGR/ABGR), and converts other types with one bulk getRGB
+     *
+     * @return packed RGB value (0xRRGGBB) of each pixel, indexed by y * width + x
+     */
+    public int[] parseBufferedImageToRGB(BufferedImage bufferedImage) {
+        int width = bufferedImage.getWidth();
+        int height = bufferedImage.getHeight();
+        Raster raster = bufferedImage.getRaster();
+        SampleModel sampleModel = raster.getSampleModel();
+        DataBuffer dataBuffer = raster.getDataBuffer();
+        int[] rgb = new int[width * height];
+
+        switch (bufferedImage.getType()) {
+            case BufferedImage.TYPE_INT_RGB:
+            case BufferedImage.TYPE_INT_ARGB:
+                if (dataBuffer instanceof DataBufferInt && sampleModel instanceof SinglePixelPackedSampleModel) {
+                    int[] data = ((DataBufferInt) dataBuffer).getData();
+
+                    for (int y = 0; y < height; y++) {
+                        int offset = getOffset(raster, sampleModel, y);
+                        for (int x = 0; x < width; x++) {
+                            rgb[y * width + x] = data[offset + x] & 0xFFFFFF;
+                        }
+                    }
+                    return rgb;
+                }
+                break;
+            case BufferedImage.TYPE_3BYTE_BGR:
+            case BufferedImage.TYPE_4BYTE_ABGR:
+                if (dataBuffer instanceof DataBufferByte && sampleModel instanceof ComponentSampleModel) {
+                    byte[] data = ((DataBufferByte) dataBuffer).getData();
+                    ComponentSampleModel componentSampleModel = (ComponentSampleModel) sampleModel;
+                    int pixelStride = componentSampleModel.getPixelStride();
+                    int[] bandOffsets = componentSampleModel.getBandOffsets(); // Red, green, blue (, alpha)
+
+                    for (int y = 0; y < height; y++) {
+                        int offset = getOffset(raster, sampleModel, y);
+                        for (int x = 0; x < width; x++, offset += pixelStride) {
+                            rgb[y * width + x] = (data[offset + bandOffsets[0]] & 0xFF) << 16
+                                    | (data[offset + bandOffsets[1]] & 0xFF) << 8
+                                    | (data[offset + bandOffsets[2]] & 0xFF);
+                        }
+                    }
+                    return rgb;
+                }
+                break;
+        }
+
+        bufferedImage.getRGB(0, 0, width, height, rgb, 0, width);
+        for (int pixel = 0; pixel < rgb.length; pixel++) {
+            rgb[pixel] &= 0xFFFFFF;
+        }
+
+        return rgb;
+    }
+
+    /**
+     * @return index in the data buffer of the first pixel of row y, before any band offset
+     */
+    private static int getOffset(Raster raster, SampleModel sampleModel, int y) {
+        int offset = raster.getDataBuffer().getOffset();
+
+        if (sampleModel instanceof SinglePixelPackedSampleModel) {
+            return offset + ((SinglePixelPackedSampleModel) sampleModel).getOffset(-raster.getSampleModelTranslateX(), y - raster.getSampleModelTranslateY());
+        }
+        ComponentSampleModel componentSampleModel = (ComponentSampleModel) sampleModel;
+        return offset + (y - raster.getSampleModelTranslateY()) * componentSampleModel.getScanlineStride()
+                - raster.getSampleModelTranslateX() * componentSampleModel.getPixelStride();
     }
 }
@@ -1,19 +1,22 @@
 package Utils;
 
-import java.awt.Color;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 public class Utils {
 
-    public static double getEuclideanColorDistance(Color color1, Color color2) {
-        return Math.sqrt(Math.pow(color2.getRed() - color1.getRed(), 2)
-                + Math.pow(color2.getGreen() - color1.getGreen(), 2)
-                + Math.pow(color2.getBlue() - color1.getBlue(), 2));
+    // Random number generator of each thread. Never shared, so no synchronization and no allocation per call
+    private static final ThreadLocal<SplittableRandom> RANDOM = ThreadLocal.withInitial(SplittableRandom::new);
+
+    /**
+     * Reseeds the random number generator of the current thread. Work seeded with the same seed on any thread
+     * gets the same random numbers, which makes runs reproducible
+     */
+    public static void setSeed(long seed) {
+        RANDOM.set(new SplittableRandom(seed));
     }
 
     /**
@@ -21,29 +24,39 @@ public class Utils {
      * @return A random int [0, limit>
      */
     public static int randomIndex(int limit) {
-        Random random = new Random();
-        return limit == 0 ? 0 : random.nextInt(limit);
+        return limit == 0 ? 0 : RANDOM.get().nextInt(limit);
     }
 
     public static int randomInt(int min, int max) {
-        Random random = new Random();
-        return min + random.nextInt(max - min + 1);
+        return RANDOM.get().nextInt(min, max + 1);
     }
 
     /**
      * @return A random double [0, 1]
      */
     public static double randomDouble() {
-        Random random = new Random();
-        return random.nextDouble();
+        return RANDOM.get().nextDouble();
     }
 
     /**
      * @return A random double between [min, max]
      */
     public static double randomDouble(double min, double max) {
-        Random random = new Random();
-        return min + (max - min) * random.nextDouble();
+        return min + (max - min) * RANDOM.get().nextDouble();
+    }
+
+    /**
+     * Fisher-Yates shuffle with the random number generator of the current thread
+     */
+    public static <T> void shuffle(List<T> list) {
+        SplittableRandom random = RANDOM.get();
+
+        for (int i = list.size() - 1; i > 0; i--) {
+            T element = list.get(i);
+            int j = random.nextInt(i + 1);
+            list.set(i, list.get(j));
+            list.set(j, element);
+        }
     }
 
     /**
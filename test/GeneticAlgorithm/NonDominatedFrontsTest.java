@@ -0,0 +1,92 @@
+package GeneticAlgorithm;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Adds and removes random individuals in NonDominatedFronts, and after every change compares the rank of each individual,
+ * and the members of each front, with NonDominatedSorting of the whole population. Objectives are small integers, so
+ * there are many ties and equal individuals
+ */
+public class NonDominatedFrontsTest {
+    private static final int NUMBER_OF_TRIALS = 2000;
+    private static final int CHANGES_PER_TRIAL = 60;
+
+    public static void main(String[] args) throws ReflectiveOperationException {
+        Random random = new Random(1);
+
+        for (int trial = 0; trial < NUMBER_OF_TRIALS; trial++) {
+            List<Individual> individuals = new ArrayList<>();
+            for (int i = 1 + random.nextInt(30); i > 0; i--) {
+                individuals.add(createIndividual(random));
+            }
+            NonDominatedFronts fronts = new NonDominatedFronts(individuals);
+            check(individuals, fronts, trial, 0);
+
+            for (int change = 1; change <= CHANGES_PER_TRIAL; change++) {
+                if (individuals.isEmpty() || random.nextBoolean()) {
+                    Individual individual = createIndividual(random);
+                    individuals.add(individual);
+                    fronts.add(individual);
+                } else {
+                    fronts.remove(individuals.remove(random.nextInt(individuals.size())));
+                }
+                check(individuals, fronts, trial, change);
+            }
+        }
+
+        System.out.println("NonDominatedFrontsTest: " + NUMBER_OF_TRIALS + " trials of " + CHANGES_PER_TRIAL + " changes passed");
+    }
+
+    private static void check(List<Individual> individuals, NonDominatedFronts fronts, int trial, int change) {
+        double[][] objectives = new double[individuals.size()][];
+        for (int i = 0; i < objectives.length; i++) {
+            objectives[i] = new double[]{individuals.get(i).getOverallDeviation(), individuals.get(i).getConnectivity()};
+        }
+
+        int[] ranks = NonDominatedSorting.sort(objectives);
+        int numberOfFronts = 0;
+        for (int i = 0; i < ranks.length; i++) {
+            if (individuals.get(i).getRank() != ranks[i]) {
+                throw new AssertionError("Trial " + trial + ", change " + change + ": rank " + individuals.get(i).getRank() + ", expected " + ranks[i]);
+            }
+            numberOfFronts = Math.max(numberOfFronts, ranks[i]);
+        }
+
+        int numberOfMembers = 0;
+        for (int rank = 1; rank <= numberOfFronts + 1; rank++) {
+            List<Individual> front = fronts.getFront(rank);
+            for (int i = 0; i < front.size(); i++) {
+                if (front.get(i).getRank() != rank) {
+                    throw new AssertionError("Trial " + trial + ", change " + change + ": individual of rank " + front.get(i).getRank() + " in front " + rank);
+                }
+                if (i > 0 && front.get(i).getOverallDeviation() < front.get(i - 1).getOverallDeviation()) {
+                    throw new AssertionError("Trial " + trial + ", change " + change + ": front " + rank + " is not sorted by overall deviation");
+                }
+            }
+            numberOfMembers += front.size();
+        }
+
+        if (numberOfMembers != individuals.size()) {
+            throw new AssertionError("Trial " + trial + ", change " + change + ": " + numberOfMembers + " individuals in the fronts, expected " + individuals.size());
+        }
+    }
+
+    /**
+     * @return individual without segments, with random objective functions in [0, 8>
+     */
+    private static Individual createIndividual(Random random) throws ReflectiveOperationException {
+        Individual individual = new Individual(null, new int[0], new ArrayList<>(), 0);
+        setField(individual, "overallDeviation", random.nextInt(8));
+        setField(individual, "connectivity", random.nextInt(8));
+        return individual;
+    }
+
+    private static void setField(Individual individual, String name, double value) throws ReflectiveOperationException {
+        Field field = Individual.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.setDouble(individual, value);
+    }
+}
@@ -0,0 +1,66 @@
+package GeneticAlgorithm;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares NonDominatedSorting with peeling off one front at a time by pairwise dominance, on random objective vectors
+ * with two and three objectives. Objectives are small integers, so there are many ties and equal solutions
+ */
+public class NonDominatedSortingTest {
+    private static final int NUMBER_OF_TRIALS = 2000;
+
+    public static void main(String[] args) {
+        Random random = new Random(1);
+
+        for (int trial = 0; trial < NUMBER_OF_TRIALS; trial++) {
+            double[][] objectives = new double[1 + random.nextInt(60)][2 + random.nextInt(2)];
+            for (double[] solution : objectives) {
+                for (int objective = 0; objective < solution.length; objective++) {
+                    solution[objective] = random.nextInt(8);
+                }
+            }
+
+            int[] expected = peelFronts(objectives);
+            int[] ranks = NonDominatedSorting.sort(objectives);
+            if (!Arrays.equals(expected, ranks)) {
+                throw new AssertionError("Trial " + trial + ": ranks " + Arrays.toString(ranks) + ", expected " + Arrays.toString(expected));
+            }
+        }
+
+        System.out.println("NonDominatedSortingTest: " + NUMBER_OF_TRIALS + " trials passed");
+    }
+
+    /**
+     * O(N^3) reference: the solutions not dominated by any remaining solution form the next front
+     */
+    private static int[] peelFronts(double[][] objectives) {
+        int[] ranks = new int[objectives.length];
+        int remaining = objectives.length;
+
+        for (int rank = 1; remaining > 0; rank++) {
+            boolean[] front = new boolean[objectives.length];
+
+            for (int i = 0; i < objectives.length; i++) {
+                if (ranks[i] != 0) {
+                    continue;
+                }
+                front[i] = true;
+                for (int j = 0; j < objectives.length && front[i]; j++) {
+                    if (ranks[j] == 0 && NonDominatedSorting.dominates(objectives[j], objectives[i])) {
+                        front[i] = false;
+                    }
+                }
+            }
+
+            for (int i = 0; i < objectives.length; i++) {
+                if (front[i]) {
+                    ranks[i] = rank;
+                    remaining--;
+                }
+            }
+        }
+
+        return ranks;
+    }
+}
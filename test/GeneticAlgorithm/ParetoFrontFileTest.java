@@ -0,0 +1,57 @@
+package GeneticAlgorithm;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Writes initial individuals of a random image with ParetoFrontFile, and reads them back: every label and objective
+ * function must be the same
+ */
+public class ParetoFrontFileTest {
+    private static final int WIDTH = 61;
+    private static final int HEIGHT = 37;
+    private static final int NUMBER_OF_INDIVIDUALS = 12;
+
+    public static void main(String[] args) throws IOException {
+        Random random = new Random(1);
+        int[] rgb = new int[WIDTH * HEIGHT];
+        for (int pixel = 0; pixel < rgb.length; pixel++) {
+            rgb[pixel] = random.nextInt(0x1000000);
+        }
+
+        ImageGraph imageGraph = new ImageGraph(rgb, WIDTH);
+        List<Individual> individuals = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_INDIVIDUALS; i++) {
+            individuals.add(new Individual(imageGraph, i));
+        }
+
+        File file = File.createTempFile("pareto", ".front");
+        file.deleteOnExit();
+        ParetoFrontFile.write(file, WIDTH, HEIGHT, individuals);
+        ParetoFrontFile frontFile = ParetoFrontFile.read(file);
+
+        if (frontFile.getWidth() != WIDTH || frontFile.getHeight() != HEIGHT || frontFile.getNumberOfIndividuals() != NUMBER_OF_INDIVIDUALS) {
+            throw new AssertionError("Header " + frontFile.getWidth() + "x" + frontFile.getHeight() + " with " + frontFile.getNumberOfIndividuals() + " individuals");
+        }
+
+        for (int i = 0; i < NUMBER_OF_INDIVIDUALS; i++) {
+            Individual individual = individuals.get(i);
+
+            if (frontFile.getGeneration(i) != individual.getGeneration()
+                    || frontFile.getNumberOfSegments(i) != individual.getSegments().size()
+                    || frontFile.getOverallDeviation(i) != individual.getOverallDeviation()
+                    || frontFile.getConnectivity(i) != individual.getConnectivity()) {
+                throw new AssertionError("Individual " + i + ": header differs");
+            }
+            if (!Arrays.equals(frontFile.getLabels(i), individual.getLabels())) {
+                throw new AssertionError("Individual " + i + ": labels differ");
+            }
+        }
+
+        System.out.println("ParetoFrontFileTest: " + NUMBER_OF_INDIVIDUALS + " individuals read back");
+    }
+}
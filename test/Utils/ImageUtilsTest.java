@@ -0,0 +1,60 @@
+package Utils;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Compares parseBufferedImageToRGB with BufferedImage.getRGB on every bundled image, as decoded and converted to other
+ * image types, and on subimages with offsets into the raster
+ */
+public class ImageUtilsTest {
+    private static final int[] IMAGE_TYPES = {
+            BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_BGR,
+            BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_USHORT_565_RGB
+    };
+
+    public static void main(String[] args) throws IOException {
+        ImageUtils imageUtils = new ImageUtils();
+        File[] imageFiles = Objects.requireNonNull(new File("src/resources/images").listFiles(File::isFile),
+                "Run from the repository root");
+        int numberOfChecks = 0;
+
+        for (File imageFile : imageFiles) {
+            BufferedImage image = imageUtils.readImage(imageFile);
+            check(imageUtils, image, imageFile.getName());
+            check(imageUtils, image.getSubimage(3, 9, image.getWidth() / 2, image.getHeight() / 2), imageFile.getName() + " subimage");
+            numberOfChecks += 2;
+
+            for (int type : IMAGE_TYPES) {
+                BufferedImage converted = new BufferedImage(image.getWidth(), image.getHeight(), type);
+                converted.getGraphics().drawImage(image, 0, 0, null);
+                check(imageUtils, converted, imageFile.getName() + " type " + type);
+                check(imageUtils, converted.getSubimage(7, 5, image.getWidth() - 20, image.getHeight() - 11),
+                        imageFile.getName() + " type " + type + " subimage");
+                numberOfChecks += 2;
+            }
+        }
+
+        System.out.println("ImageUtilsTest: " + numberOfChecks + " images passed");
+    }
+
+    private static void check(ImageUtils imageUtils, BufferedImage image, String name) {
+        int[] rgb = imageUtils.parseBufferedImageToRGB(image);
+
+        if (rgb.length != image.getWidth() * image.getHeight()) {
+            throw new AssertionError(name + ": " + rgb.length + " pixels, expected " + image.getWidth() * image.getHeight());
+        }
+
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                int expected = image.getRGB(x, y) & 0xFFFFFF;
+                if (rgb[y * image.getWidth() + x] != expected) {
+                    throw new AssertionError(name + ": pixel (" + x + ", " + y + ") is " + Integer.toHexString(rgb[y * image.getWidth() + x])
+                            + ", expected " + Integer.toHexString(expected));
+                }
+            }
+        }
+    }
+}